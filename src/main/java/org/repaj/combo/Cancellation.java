@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.repaj.combo;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * A flag that tells parsing run by current thread to stop, because its result is not needed.
+ * Parsing checks it once in a while and stops by throwing {@link CancellationException}.
+ *
+ * @author Konrad Kleczkowski
+ */
+final class Cancellation {
+    private static final ThreadLocal<Cancellation> current = new ThreadLocal<>();
+
+    private volatile boolean cancelled;
+
+    /**
+     * Cancels parsing this flag belongs to.
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Tests whether parsing this flag belongs to is cancelled.
+     *
+     * @return {@code true} if parsing is cancelled
+     */
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Makes this flag the one of current thread.
+     *
+     * @return a flag of current thread before, to be passed to {@link #restore(Cancellation)}
+     */
+    Cancellation enter() {
+        Cancellation outer = current.get();
+        current.set(this);
+        return outer;
+    }
+
+    /**
+     * Restores flag of current thread.
+     *
+     * @param outer a flag of current thread before {@link #enter()}
+     */
+    static void restore(Cancellation outer) {
+        if (outer == null) {
+            current.remove();
+        } else {
+            current.set(outer);
+        }
+    }
+
+    /**
+     * Checks whether parsing run by current thread is cancelled.
+     *
+     * @throws CancellationException if parsing is cancelled
+     */
+    static void check() {
+        Cancellation cancellation = current.get();
+        if (cancellation != null && cancellation.cancelled) {
+            throw new CancellationException();
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.nio.CharBuffer;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * An immutable input of characters. It is a view over a {@link CharSequence}
+ * starting at some offset, so advancing never copies characters.
+ * <p>
+ * Inputs advanced from the same input created by {@link #of(CharSequence)} belong to one parse.
+ * They share the record of the {@linkplain #getFurthestFailure() furthest failure} of that parse.
+ * Inputs are equal if they belong to the same parse and view the same offset,
+ * hence they are suitable keys of {@linkplain Parser#memoize(java.util.Map) memoization}.
+ *
+ * @author Konrad Kleczkowski
+ * @see CharParsers
+ */
+public final class CharInput implements Comparable<CharInput> {
+    private final CharSequence sequence;
+    private final int offset;
+    private final FailureTracker tracker;
+
+    private CharInput(CharSequence sequence, int offset, FailureTracker tracker) {
+        this.sequence = sequence;
+        this.offset = offset;
+        this.tracker = tracker;
+    }
+
+    /**
+     * Creates input that views {@code sequence} from its beginning and begins new parse.
+     * The sequence should not be modified while it is parsed.
+     *
+     * @param sequence a sequence of characters
+     * @return newly created {@code CharInput}
+     * @throws NullPointerException if {@code sequence} is {@code null}
+     */
+    public static CharInput of(CharSequence sequence) {
+        return new CharInput(Objects.requireNonNull(sequence), 0, new FailureTracker());
+    }
+
+    /**
+     * Creates input that views {@code chars} from its beginning and begins new parse.
+     * The array should not be modified while it is parsed.
+     *
+     * @param chars an array of characters
+     * @return newly created {@code CharInput}
+     * @throws NullPointerException if {@code chars} is {@code null}
+     */
+    public static CharInput of(char[] chars) {
+        return of(CharBuffer.wrap(chars));
+    }
+
+    /**
+     * Gets viewed sequence.
+     *
+     * @return a sequence of characters
+     */
+    public CharSequence getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets offset in viewed sequence.
+     *
+     * @return an offset
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets number of characters remaining after offset.
+     *
+     * @return number of remaining characters
+     */
+    public int remaining() {
+        return sequence.length() - offset;
+    }
+
+    /**
+     * Checks if there are any characters remaining after offset.
+     *
+     * @return {@code true} if there are remaining characters, otherwise {@code false}
+     */
+    public boolean hasRemaining() {
+        if (offset < sequence.length()) {
+            return true;
+        }
+        examineEnd();
+        return false;
+    }
+
+    /**
+     * Gets character at {@code index} relative to offset.
+     *
+     * @param index an index relative to offset
+     * @return a character
+     * @throws IndexOutOfBoundsException if {@code index} is negative or not less than {@link #remaining()}
+     */
+    public char charAt(int index) {
+        if (index < 0 || index >= remaining()) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        return sequence.charAt(offset + index);
+    }
+
+    /**
+     * Creates input advanced by {@code count} characters.
+     *
+     * @param count number of characters
+     * @return advanced input, or this input if {@code count} is zero
+     * @throws IndexOutOfBoundsException if {@code count} is negative or greater than {@link #remaining()}
+     */
+    public CharInput advance(int count) {
+        if (count < 0 || count > remaining()) {
+            throw new IndexOutOfBoundsException(String.valueOf(count));
+        }
+        return count == 0 ? this : new CharInput(sequence, offset + count, tracker);
+    }
+
+    /**
+     * Gets report of the furthest failure of primitive parser within parse this input belongs to.
+     * Failures are recorded by {@link CharParsers} as parsing goes, so the report
+     * is available as soon as parsing ends.
+     *
+     * @return an {@code Optional} describing the furthest failure, or empty {@code Optional}
+     * if nothing has failed
+     */
+    public Optional<FailureReport> getFurthestFailure() {
+        return Optional.ofNullable(tracker.report());
+    }
+
+    /**
+     * Creates input at the same offset of the same sequence, that tracks failures on its own,
+     * so it can be parsed by other thread.
+     *
+     * @return a forked input
+     */
+    CharInput fork() {
+        return new CharInput(sequence, offset, new FailureTracker());
+    }
+
+    /**
+     * Creates input of parse this input belongs to, at offset of {@code other}.
+     *
+     * @param other an input of the same sequence, e.g. of a {@linkplain #fork() forked} parse
+     * @return an input at offset of {@code other}
+     */
+    CharInput at(CharInput other) {
+        return other.offset == offset ? this : new CharInput(sequence, other.offset, tracker);
+    }
+
+    /**
+     * Records failures of parse {@code other} belongs to as failures of parse of this input.
+     *
+     * @param other an input of other parse, e.g. a {@linkplain #fork() forked} one
+     */
+    void recordFailures(CharInput other) {
+        tracker.record(other.tracker);
+    }
+
+    /**
+     * Records that a parser examined the end of sequence, i.e. it depends on
+     * where the sequence ends. Only {@link IncrementalParse} tracks it; within {@link PushParser}
+     * the parser is suspended until more characters are received.
+     */
+    void examineEnd() {
+        if (sequence instanceof IncrementalParse.Text) {
+            ((IncrementalParse.Text) sequence).examine(sequence.length());
+        } else if (sequence instanceof PushParser.Text) {
+            ((PushParser.Text) sequence).examineEnd();
+        }
+    }
+
+    /**
+     * Gets a tracker of failures of parse this input belongs to.
+     *
+     * @return a tracker
+     */
+    FailureTracker tracker() {
+        return tracker;
+    }
+
+    /**
+     * Records that {@code item} was expected at this input.
+     *
+     * @param item an expected item
+     */
+    void expected(Expectation item) {
+        tracker.record(offset, item);
+    }
+
+    /**
+     * Tests whether this input is of the same parse as {@code other} and is before it.
+     *
+     * @param other an input
+     * @return {@code true} if this input is before {@code other} in the same parse
+     */
+    boolean precedes(CharInput other) {
+        return sequence == other.sequence && tracker == other.tracker && offset < other.offset;
+    }
+
+    /**
+     * Gets characters between offset of this input and offset of {@code end}.
+     *
+     * @param end an input viewing the same sequence at the same or greater offset
+     * @return a subsequence of characters
+     * @throws IllegalArgumentException if {@code end} views other sequence
+     * @throws IndexOutOfBoundsException if {@code end} is before this input
+     */
+    public CharSequence until(CharInput end) {
+        if (end.sequence != sequence) {
+            throw new IllegalArgumentException();
+        }
+        return sequence.subSequence(offset, end.offset);
+    }
+
+    /**
+     * Compares offset of this input with offset of {@code other}. Inputs are ordered
+     * within one parse: inputs of different parses at the same offset compare as equal,
+     * though they are not {@linkplain #equals(Object) equal}. This ordering is inconsistent
+     * with equals, so a sorted map or set should not hold inputs of different parses.
+     *
+     * @param other an input of the same parse
+     * @return a negative integer, zero, or a positive integer as this input is before,
+     * at, or after {@code other}
+     */
+    @Override
+    public int compareTo(CharInput other) {
+        return Integer.compare(offset, other.offset);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CharInput)) {
+            return false;
+        }
+        CharInput other = (CharInput) o;
+        return sequence == other.sequence && offset == other.offset && tracker == other.tracker;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(sequence) + offset;
+    }
+
+    @Override
+    public String toString() {
+        return "CharInput[offset=" + offset + ", remaining=" + remaining() + "]";
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.InputMismatchException;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * A set of parsers of {@link CharInput}. Parsers compare characters of
+ * viewed sequence in place and never copy the input. Parsers fail with
+ * {@link InputMismatchException} describing what was expected, which is
+ * created only if the failure is inspected. Each failure is also recorded
+ * as {@linkplain CharInput#getFurthestFailure() the furthest failure}, if it is.
+ *
+ * @author Konrad Kleczkowski
+ */
+public class CharParsers {
+    private static final Expectation ANY_CHARACTER = new Expectation("any character");
+    private static final Expectation CHARACTER = new Expectation("character");
+    private static final Expectation INTEGER = new Expectation("integer");
+    private static final Expectation INTEGER_IN_RANGE = new Expectation("integer in range");
+
+    /**
+     * Creates parser that handles any character.
+     *
+     * @return described parser
+     */
+    public static Parser<Character, CharInput> anyChar() {
+        return new CharacterParser(c -> true, ANY_CHARACTER);
+    }
+
+    /**
+     * Creates parser that handles character {@code c}.
+     *
+     * @param c a character
+     * @return described parser
+     */
+    public static Parser<Character, CharInput> character(char c) {
+        return new CharacterParser(c);
+    }
+
+    /**
+     * Creates parser that handles character satisfying {@code predicate}.
+     *
+     * @param predicate a character predicate
+     * @return described parser
+     * @throws NullPointerException if {@code predicate} is {@code null}
+     */
+    public static Parser<Character, CharInput> character(CharPredicate predicate) {
+        return new CharacterParser(Objects.requireNonNull(predicate), CHARACTER);
+    }
+
+    /**
+     * Creates parser that handles {@code literal}. The output is {@code literal} itself.
+     *
+     * @param literal a literal
+     * @return described parser
+     * @throws NullPointerException if {@code literal} is {@code null}
+     */
+    public static Parser<String, CharInput> literal(String literal) {
+        return new LiteralParser(literal);
+    }
+
+    /**
+     * Creates parser that handles match of {@code regex} at the beginning of input.
+     *
+     * @param regex a regex string
+     * @return described parser
+     * @throws java.util.regex.PatternSyntaxException if {@code regex} is invalid
+     */
+    public static Parser<String, CharInput> regex(String regex) {
+        return regex(Pattern.compile(regex));
+    }
+
+    /**
+     * Creates parser that handles match of {@code pattern} at the beginning of input.
+     * The pattern may look behind the beginning, but {@code ^} matches only at
+     * the beginning of viewed sequence.
+     *
+     * @param pattern a pattern
+     * @return described parser
+     * @throws NullPointerException if {@code pattern} is {@code null}
+     */
+    public static Parser<String, CharInput> regex(Pattern pattern) {
+        return new RegexParser(Objects.requireNonNull(pattern));
+    }
+
+    /**
+     * Creates parser that handles decimal integer with optional minus sign
+     * and fails if it does not fit in {@code int}.
+     *
+     * @return described parser
+     */
+    public static IntParser<CharInput> integer() {
+        return input -> {
+            int length = integerLength(input);
+            if (length == 0) {
+                return mismatch(INTEGER, input);
+            }
+            boolean negative = input.charAt(0) == '-';
+            long negated = negatedValue(input, length, negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE);
+            if (negated > 0) {
+                return mismatch(INTEGER_IN_RANGE, input);
+            }
+            return Results.successInt((int) (negative ? negated : -negated), input.advance(length));
+        };
+    }
+
+    /**
+     * Creates parser that handles decimal integer with optional minus sign
+     * and fails if it does not fit in {@code long}.
+     *
+     * @return described parser
+     */
+    public static LongParser<CharInput> longInteger() {
+        return input -> {
+            int length = integerLength(input);
+            if (length == 0) {
+                return mismatch(INTEGER, input);
+            }
+            boolean negative = input.charAt(0) == '-';
+            long negated = negatedValue(input, length, negative ? Long.MIN_VALUE : -Long.MAX_VALUE);
+            if (negated > 0) {
+                return mismatch(INTEGER_IN_RANGE, input);
+            }
+            return Results.successLong(negative ? negated : -negated, input.advance(length));
+        };
+    }
+
+    /**
+     * Records that {@code expected} item was expected at {@code input}
+     * and creates failed {@code Try} describing it. The exception is created only when it is needed.
+     *
+     * @param expected an expected item
+     * @param input    an input
+     * @param <T>      type of value
+     * @return a failed {@code Try}
+     */
+    static <T> Try<T> mismatch(Expectation expected, CharInput input) {
+        input.expected(expected);
+        return Try.failLazily(() -> new InputMismatchException(
+                "expected " + expected + " at offset " + input.getOffset()));
+    }
+
+    private static int integerLength(CharInput input) {
+        int remaining = input.remaining();
+        int start = remaining > 0 && input.charAt(0) == '-' ? 1 : 0;
+        int index = start;
+        while (index < remaining && isDigit(input.charAt(index))) {
+            index++;
+        }
+        if (index == remaining) {
+            input.examineEnd();
+        }
+        return index > start ? index : 0;
+    }
+
+    // accumulates negatively, so Long.MIN_VALUE does not overflow;
+    // returns a positive number if the value would be less than limit
+    private static long negatedValue(CharInput input, int length, long limit) {
+        long value = 0;
+        for (int i = input.charAt(0) == '-' ? 1 : 0; i < length; i++) {
+            int digit = input.charAt(i) - '0';
+            // division rounds towards zero, so this is value * 10 - digit < limit without overflow
+            if (value < (limit + digit) / 10) {
+                return 1;
+            }
+            value = value * 10 - digit;
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.Objects;
+
+/**
+ * A predicate of one {@code char} value.
+ *
+ * @author Konrad Kleczkowski
+ */
+@FunctionalInterface
+public interface CharPredicate {
+    /**
+     * Creates predicate that is satisfied by any of {@code chars}.
+     *
+     * @param chars characters
+     * @return newly created {@code CharPredicate}
+     */
+    static CharPredicate anyOf(CharSequence chars) {
+        String string = chars.toString();
+        return c -> string.indexOf(c) >= 0;
+    }
+
+    /**
+     * Creates predicate that is satisfied by characters from {@code from} to {@code to}, inclusive.
+     *
+     * @param from first character of range
+     * @param to   last character of range
+     * @return newly created {@code CharPredicate}
+     */
+    static CharPredicate inRange(char from, char to) {
+        return c -> c >= from && c <= to;
+    }
+
+    /**
+     * Tests a character.
+     *
+     * @param c a character
+     * @return {@code true} if character satisfies this predicate, otherwise {@code false}
+     */
+    boolean test(char c);
+
+    /**
+     * Creates predicate that is satisfied if both this and {@code other} are satisfied.
+     *
+     * @param other other predicate
+     * @return newly created {@code CharPredicate}
+     * @throws NullPointerException if {@code other} is {@code null}
+     */
+    default CharPredicate and(CharPredicate other) {
+        Objects.requireNonNull(other);
+        return c -> test(c) && other.test(c);
+    }
+
+    /**
+     * Creates predicate that is satisfied if this or {@code other} is satisfied.
+     *
+     * @param other other predicate
+     * @return newly created {@code CharPredicate}
+     * @throws NullPointerException if {@code other} is {@code null}
+     */
+    default CharPredicate or(CharPredicate other) {
+        Objects.requireNonNull(other);
+        return c -> test(c) || other.test(c);
+    }
+
+    /**
+     * Creates predicate that is satisfied if this one is not.
+     *
+     * @return newly created {@code CharPredicate}
+     */
+    default CharPredicate negate() {
+        return c -> !test(c);
+    }
+}
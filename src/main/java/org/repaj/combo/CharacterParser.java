@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+/**
+ * A parser that handles one character, either given or satisfying a predicate.
+ *
+ * @author Konrad Kleczkowski
+ * @see CharParsers#character(char)
+ * @see CharParsers#character(CharPredicate)
+ */
+public final class CharacterParser extends CharParser<Character> {
+    private final char c;
+    private final boolean single;
+    private final CharPredicate predicate;
+    private final Expectation expected;
+
+    CharacterParser(char c) {
+        this(c, new Expectation("'" + c + "'"));
+    }
+
+    private CharacterParser(char c, Expectation expected) {
+        super(FirstSet.of(c, expected));
+        this.c = c;
+        this.single = true;
+        this.predicate = other -> other == c;
+        this.expected = expected;
+    }
+
+    CharacterParser(CharPredicate predicate, Expectation expected) {
+        super(FirstSet.of(predicate, expected));
+        this.c = 0;
+        this.single = false;
+        this.predicate = predicate;
+        this.expected = expected;
+    }
+
+    /**
+     * Gets a predicate of handled character.
+     *
+     * @return a character predicate
+     */
+    public CharPredicate getPredicate() {
+        return predicate;
+    }
+
+    @Override
+    public Try<Result<Character, CharInput>> parse(CharInput input) {
+        if (input.hasRemaining()) {
+            char next = input.charAt(0);
+            if (single ? next == c : predicate.test(next)) {
+                return Results.success(next, input.advance(1));
+            }
+        }
+        return CharParsers.mismatch(expected, input);
+    }
+}
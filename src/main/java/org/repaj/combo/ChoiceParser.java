@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A parser that attempts to parse using alternatives in order, until one of them succeeds.
+ * When parsing {@link CharInput}, alternatives that certainly fail at the next character,
+ * according to their {@link FirstSet}, are skipped using a table indexed by that character.
+ * Skipped alternatives still report what they expected, when alternatives
+ * before them fail, just as if they were attempted in order.
+ *
+ * @author Konrad Kleczkowski
+ * @see Parsers#choice(List)
+ */
+public final class ChoiceParser<O, I> extends Combinator<O, I> {
+    final List<Parser<O, I>> alternatives;
+    private final int[] all;
+    private volatile Dispatch dispatch;
+
+    ChoiceParser(List<? extends Parser<O, I>> alternatives) {
+        this.alternatives = Collections.unmodifiableList(new ArrayList<>(alternatives));
+        this.all = new int[alternatives.size()];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+        }
+    }
+
+    /**
+     * Gets an unmodifiable list of alternatives.
+     *
+     * @return an unmodifiable list of alternatives
+     */
+    public List<Parser<O, I>> getAlternatives() {
+        return alternatives;
+    }
+
+    @Override
+    void enter(Trampoline trampoline, I input) {
+        if (input instanceof CharInput) {
+            Dispatch.Entry entry = dispatch().select((CharInput) input);
+            if (entry.candidates.length == 0) {
+                entry.recordSkipped((CharInput) input, 0);
+                trampoline.complete(entry.failure((CharInput) input));
+            } else {
+                new Attempt(entry.candidates, entry, input).proceed(trampoline);
+            }
+        } else {
+            new Attempt(all, null, input).proceed(trampoline);
+        }
+    }
+
+    private Dispatch dispatch() {
+        Dispatch dispatch = this.dispatch;
+        if (dispatch == null) {
+            // alternatives may not be fully defined until parsing starts
+            this.dispatch = dispatch = new Dispatch(alternatives);
+        }
+        return dispatch;
+    }
+
+    private final class Attempt extends Trampoline.Backtrack {
+        private final int[] candidates;
+        private final Dispatch.Entry entry;
+        private I input;
+        private int index;
+
+        Attempt(int[] candidates, Dispatch.Entry entry, I input) {
+            this.candidates = candidates;
+            this.entry = entry;
+            this.input = input;
+        }
+
+        void proceed(Trampoline trampoline) {
+            if (entry != null) {
+                entry.recordSkipped((CharInput) input, index);
+            }
+            trampoline.push(this);
+            trampoline.call(alternatives.get(candidates[index++]), input);
+        }
+
+        @Override
+        public void resume(Trampoline trampoline, Try<? extends Result<?, ?>> result) {
+            if (result.isSuccess() || isCommitted()) {
+                trampoline.complete(result);
+            } else if (index == candidates.length) {
+                if (entry != null) {
+                    entry.recordSkipped((CharInput) input, index);
+                }
+                trampoline.complete(result);
+            } else {
+                proceed(trampoline);
+            }
+        }
+
+        @Override
+        void release() {
+            input = null;
+        }
+    }
+
+    private static final class Dispatch {
+        private final Entry[] ascii = new Entry[128];
+        private final Entry nonAscii;
+        private final Entry end;
+
+        Dispatch(List<? extends Parser<?, ?>> alternatives) {
+            FirstSet[] firstSets = new FirstSet[alternatives.size()];
+            for (int i = 0; i < firstSets.length; i++) {
+                firstSets[i] = FirstSet.of(alternatives.get(i));
+            }
+            for (char c = 0; c < 128; c++) {
+                ascii[c] = new Entry(firstSets, c);
+            }
+            nonAscii = new Entry(firstSets, (char) 128);
+            end = new Entry(firstSets, null);
+        }
+
+        Entry select(CharInput input) {
+            Entry entry;
+            if (!input.hasRemaining()) {
+                entry = end;
+            } else {
+                char c = input.charAt(0);
+                entry = c < 128 ? ascii[c] : nonAscii;
+            }
+            return entry;
+        }
+
+        static final class Entry {
+            final int[] candidates;
+            // expectations of alternatives skipped before each candidate, and after the last one
+            private final Expectation[][] skipped;
+
+            Entry(FirstSet[] firstSets, Character next) {
+                List<Integer> candidates = new ArrayList<>();
+                List<Expectation[]> skipped = new ArrayList<>();
+                Set<Expectation> gap = new LinkedHashSet<>();
+                for (int i = 0; i < firstSets.length; i++) {
+                    if (firstSets[i] == null || next != null && firstSets[i].contains(next)) {
+                        candidates.add(i);
+                        skipped.add(gap.toArray(new Expectation[0]));
+                        gap.clear();
+                    } else {
+                        gap.addAll(firstSets[i].expected());
+                    }
+                }
+                skipped.add(gap.toArray(new Expectation[0]));
+                this.candidates = candidates.stream().mapToInt(Integer::intValue).toArray();
+                this.skipped = skipped.toArray(new Expectation[0][]);
+            }
+
+            /**
+             * Records expectations of alternatives skipped before candidate at {@code index},
+             * or after the last candidate if {@code index} is the number of candidates.
+             */
+            void recordSkipped(CharInput input, int index) {
+                for (Expectation item : skipped[index]) {
+                    input.expected(item);
+                }
+            }
+
+            <T> Try<T> failure(CharInput input) {
+                return Try.failLazily(() -> {
+                    Set<String> expected = new LinkedHashSet<>();
+                    for (Expectation item : skipped[0]) {
+                        expected.add(item.toString());
+                    }
+                    return new FailureReport(input.getOffset(), expected).toException();
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+/**
+ * A parser built of other parsers, which is run by {@link Trampoline}
+ * in constant depth of Java stack.
+ *
+ * @author Konrad Kleczkowski
+ */
+abstract class Combinator<O, I> implements Parser<O, I> {
+    @Override
+    public final Try<Result<O, I>> parse(I input) {
+        return Trampoline.run(this, input);
+    }
+
+    /**
+     * Enters this combinator. Must either {@linkplain Trampoline#call(Parser, Object) call}
+     * another parser or {@linkplain Trampoline#complete(Try) complete}.
+     *
+     * @param trampoline an engine
+     * @param input      an input
+     */
+    abstract void enter(Trampoline trampoline, I input);
+
+    /**
+     * Resumes this combinator that {@linkplain Trampoline#push(Combinator) pushed} itself
+     * as continuation. Must either {@linkplain Trampoline#call(Parser, Object) call}
+     * another parser or {@linkplain Trampoline#complete(Try) complete}.
+     *
+     * @param trampoline an engine
+     * @param result     a result of awaited parser
+     */
+    void resume(Trampoline trampoline, Try<? extends Result<?, ?>> result) {
+        throw new IllegalStateException();
+    }
+}
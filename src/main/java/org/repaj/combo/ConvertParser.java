@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.function.Function;
+
+/**
+ * A parser that converts successful result of a parser into result of another kind,
+ * e.g. an {@code int} result of {@link IntParser} into a boxed one. It bridges parsers
+ * and their primitive specializations within the same {@link Trampoline}, so cuts
+ * and constant depth of Java stack are kept across the bridge.
+ *
+ * @author Konrad Kleczkowski
+ * @see PrimitiveParsers
+ */
+final class ConvertParser<R, O, I> extends Combinator<O, I> {
+    final Parser<?, I> parser;
+    private final Function<? super Try<R>, ? extends Try<?>> conversion;
+
+    /**
+     * Creates parser.
+     *
+     * @param parser     a parser whose successful results are of type {@code R}
+     * @param conversion a function that converts successful {@code Try} of result
+     */
+    ConvertParser(Parser<?, I> parser, Function<? super Try<R>, ? extends Try<?>> conversion) {
+        this.parser = parser;
+        this.conversion = conversion;
+    }
+
+    @Override
+    void enter(Trampoline trampoline, I input) {
+        trampoline.push(this);
+        trampoline.call(parser, input);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    void resume(Trampoline trampoline, Try<? extends Result<?, ?>> result) {
+        trampoline.complete(result.isSuccess()
+                ? (Try<? extends Result<?, ?>>) conversion.apply((Try<R>) (Try<?>) result)
+                : result);
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.repaj.combo;
+
+/**
+ * A parser that consumes nothing, always succeeds and commits to alternatives taken
+ * so far, up to the innermost enclosing {@link RuleParser} or {@link MemoParser}.
+ * Once it is passed, enclosing choices, {@code orElse} and repetitions do not try
+ * other alternatives when the one that is parsed fails, and release input they kept
+ * to try them. When it is not enclosed by any rule or memo, memoized results of
+ * inputs before the cut are dropped too.
+ *
+ * @author Konrad Kleczkowski
+ * @see Parsers#cut()
+ * @see Parser#commit()
+ */
+public final class CutParser<I> extends Combinator<Void, I> {
+    static final CutParser<?> INSTANCE = new CutParser<>();
+
+    private CutParser() {
+    }
+
+    @Override
+    void enter(Trampoline trampoline, I input) {
+        trampoline.cut(input);
+        trampoline.complete(Results.success(null, input));
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * A primitive specialization of {@link Parser} for {@code double} outputs.
+ *
+ * @author Konrad Kleczkowski
+ * @see Parser#mapToDouble(java.util.function.ToDoubleFunction)
+ */
+@FunctionalInterface
+public interface DoubleParser<I> {
+    /**
+     * Creates parser that always returns {@code output}.
+     *
+     * @param output an output
+     * @param <I>    type of input
+     * @return newly created {@code DoubleParser}
+     */
+    static <I> DoubleParser<I> succeed(double output) {
+        return input -> Results.successDouble(output, input);
+    }
+
+    /**
+     * Parses an input.
+     *
+     * @param input an input
+     * @return a {@code Try} of parse result
+     */
+    Try<Result<I>> parse(I input);
+
+    /**
+     * Creates parser that sequentially parses using this parser and result of {@code function}.
+     *
+     * @param function a mapping function
+     * @param <P>      type parameter for newly created {@code Parser}'s output
+     * @return newly created {@code Parser} that parses sequentially
+     */
+    default <P> Parser<P, I> flatMap(DoubleFunction<Parser<P, I>> function) {
+        return mapToObj(value -> value).flatMap(function::apply);
+    }
+
+    /**
+     * Creates parser that parses using this parser and then uses {@code function} to map.
+     *
+     * @param function a mapping function
+     * @return newly created {@code DoubleParser} that maps output
+     */
+    default DoubleParser<I> map(DoubleUnaryOperator function) {
+        return PrimitiveParsers.DOUBLE.map(this,
+                result -> Results.successDouble(function.applyAsDouble(result.output), result.input));
+    }
+
+    /**
+     * Creates parser that parses using this parser and then uses {@code function} to map
+     * to an object.
+     *
+     * @param function a mapping function
+     * @param <P>      type of mapping result
+     * @return newly created {@code Parser} that maps output
+     */
+    default <P> Parser<P, I> mapToObj(DoubleFunction<? extends P> function) {
+        return PrimitiveParsers.DOUBLE.mapToObj(this,
+                result -> Results.success(function.apply(result.output), result.input));
+    }
+
+    /**
+     * Creates parser that boxes outputs of this parser.
+     *
+     * @return newly created {@code Parser} that boxes output
+     */
+    default Parser<Double, I> boxed() {
+        return mapToObj(Double::valueOf);
+    }
+
+    /**
+     * Creates parser that checks if an output value satisfies predicate. If it does,
+     * returns output successfully, otherwise fails.
+     *
+     * @param predicate an output value predicate
+     * @return newly created {@code DoubleParser} that filters output
+     */
+    default DoubleParser<I> filter(DoublePredicate predicate) {
+        return PrimitiveParsers.DOUBLE.filter(this, result -> predicate.test(result.output));
+    }
+
+    /**
+     * Creates parser that attempt to parse using this parser, and if this parser
+     * fails, falls into supplied parser. If both parser fail, then newly created parser fails
+     * using last fail message.
+     *
+     * @param parserSupplier a {@code DoubleParser} supplier
+     * @return newly created {@code DoubleParser} that is alternative of this and supplied parser
+     */
+    default DoubleParser<I> orElse(Supplier<DoubleParser<I>> parserSupplier) {
+        return PrimitiveParsers.DOUBLE.orElse(this, parserSupplier);
+    }
+
+    /**
+     * A class representing result of parse process.
+     *
+     * @param <I> type of input
+     */
+    class Result<I> {
+        double output;
+        I input;
+
+        /**
+         * Creates {@code Result}
+         *
+         * @param output an output
+         * @param input  an input
+         */
+        Result(double output, I input) {
+            this.output = output;
+            this.input = input;
+        }
+
+        /**
+         * Gets input.
+         *
+         * @return an input
+         */
+        public I getInput() {
+            return input;
+        }
+
+        /**
+         * Gets output.
+         *
+         * @return an output
+         */
+        public double getOutput() {
+            return output;
+        }
+    }
+}
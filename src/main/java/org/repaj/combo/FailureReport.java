@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.Collections;
+import java.util.InputMismatchException;
+import java.util.Set;
+
+/**
+ * A report of the furthest failure of parsing {@link CharInput}. It tells how far
+ * parsing got and what was expected there, no matter which alternative failed last.
+ *
+ * @author Konrad Kleczkowski
+ * @see CharInput#getFurthestFailure()
+ */
+public final class FailureReport {
+    private final int offset;
+    private final Set<String> expected;
+
+    FailureReport(int offset, Set<String> expected) {
+        this.offset = offset;
+        this.expected = Collections.unmodifiableSet(expected);
+    }
+
+    /**
+     * Gets offset of the furthest failure.
+     *
+     * @return an offset
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets descriptions of items that were expected at offset of the furthest failure.
+     *
+     * @return an unmodifiable set of descriptions
+     */
+    public Set<String> getExpected() {
+        return expected;
+    }
+
+    /**
+     * Creates exception describing this failure.
+     *
+     * @return newly created exception
+     */
+    public InputMismatchException toException() {
+        return new InputMismatchException(toString());
+    }
+
+    @Override
+    public String toString() {
+        return "expected " + (expected.size() == 1 ? expected.iterator().next() : "one of " + expected)
+                + " at offset " + offset;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A tracker of the furthest failure of one parse. Expected items are recorded
+ * as {@link Expectation}s of parsers, so expectations at the same offset are merged
+ * by identity and described only when failure is reported.
+ *
+ * @author Konrad Kleczkowski
+ */
+final class FailureTracker {
+    private Set<Expectation> expected = new LinkedHashSet<>();
+    private int offset = -1;
+
+    /**
+     * Records that {@code item} was expected at {@code offset}.
+     *
+     * @param offset an offset
+     * @param item   an expected item
+     */
+    void record(int offset, Expectation item) {
+        if (offset > this.offset) {
+            this.offset = offset;
+            expected.clear();
+        }
+        if (offset == this.offset) {
+            expected.add(item);
+        }
+    }
+
+    /**
+     * Records that {@code items} were expected at {@code offset}.
+     *
+     * @param offset an offset, or negative number if nothing was expected
+     * @param items  expected items
+     */
+    void record(int offset, Collection<Expectation> items) {
+        if (offset < 0 || offset < this.offset) {
+            return;
+        }
+        if (offset > this.offset) {
+            this.offset = offset;
+            expected.clear();
+        }
+        expected.addAll(items);
+    }
+
+    /**
+     * Records failures recorded by {@code other}, e.g. of a forked input.
+     *
+     * @param other other tracker
+     */
+    void record(FailureTracker other) {
+        record(other.offset, other.expected);
+    }
+
+    /**
+     * Starts recording failures of a part of parse on its own, so they can be
+     * {@linkplain #record(int, Collection) recorded again} when result of that part is reused.
+     *
+     * @return failures recorded so far, to be passed to {@link #end(Failures)}
+     */
+    Failures begin() {
+        Failures outer = new Failures(offset, expected);
+        offset = -1;
+        expected = new LinkedHashSet<>();
+        return outer;
+    }
+
+    /**
+     * Ends recording failures of a part of parse and merges them with failures recorded before.
+     *
+     * @param outer failures recorded before the part started
+     * @return failures recorded since {@link #begin()}
+     */
+    Failures end(Failures outer) {
+        Failures inner = new Failures(offset, expected);
+        if (outer.offset > offset) {
+            offset = outer.offset;
+            expected = outer.expected;
+        } else if (outer.offset == offset) {
+            expected = outer.expected;
+            expected.addAll(inner.expected);
+        } else {
+            expected = new LinkedHashSet<>(inner.expected);
+        }
+        return inner;
+    }
+
+    /**
+     * Failures recorded within a part of parse.
+     */
+    static final class Failures {
+        final int offset;
+        final Set<Expectation> expected;
+
+        Failures(int offset, Set<Expectation> expected) {
+            this.offset = offset;
+            this.expected = expected;
+        }
+    }
+
+    /**
+     * Creates report of the furthest failure recorded so far.
+     *
+     * @return a report, or {@code null} if nothing was recorded
+     */
+    FailureReport report() {
+        if (offset < 0) {
+            return null;
+        }
+        Set<String> items = new LinkedHashSet<>();
+        for (Expectation item : expected) {
+            items.add(item.toString());
+        }
+        return new FailureReport(offset, items);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * A parser that fails if output of a parser does not satisfy predicate.
+ *
+ * @author Konrad Kleczkowski
+ * @see Parser#filter(Predicate)
+ */
+public final class FilterParser<O, I> extends Combinator<O, I> {
+    final Parser<O, I> parser;
+    private final Predicate<? super O> predicate;
+
+    FilterParser(Parser<O, I> parser, Predicate<? super O> predicate) {
+        this.parser = parser;
+        this.predicate = predicate;
+    }
+
+    /**
+     * Gets a parser whose output is filtered.
+     *
+     * @return a parser whose output is filtered
+     */
+    public Parser<O, I> getParser() {
+        return parser;
+    }
+
+    /**
+     * Gets an output value predicate.
+     *
+     * @return an output value predicate
+     */
+    public Predicate<? super O> getPredicate() {
+        return predicate;
+    }
+
+    @Override
+    void enter(Trampoline trampoline, I input) {
+        trampoline.push(this);
+        trampoline.call(parser, input);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    void resume(Trampoline trampoline, Try<? extends Result<?, ?>> result) {
+        if (result.isSuccess() && !predicate.test(((Result<O, I>) result.getUnchecked()).output)) {
+            trampoline.complete(Try.failLazily(NoSuchElementException::new));
+        } else {
+            trampoline.complete(result);
+        }
+    }
+}
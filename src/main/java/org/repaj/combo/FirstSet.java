@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A set of characters a parser may start its match with. A parser that has
+ * {@code FirstSet} always consumes at least one character, so it certainly
+ * fails if the next character is not in the set. Characters outside ASCII
+ * are not distinguished.
+ * <p>
+ * A {@code FirstSet} also knows which items the parser would report as expected
+ * if it failed at its first character.
+ *
+ * @author Konrad Kleczkowski
+ * @see Parsers#choice(java.util.List)
+ */
+final class FirstSet {
+    private final long low;
+    private final long high;
+    private final boolean nonAscii;
+    private final Set<Expectation> expected;
+
+    private FirstSet(long low, long high, boolean nonAscii, Set<Expectation> expected) {
+        this.low = low;
+        this.high = high;
+        this.nonAscii = nonAscii;
+        this.expected = expected;
+    }
+
+    /**
+     * Creates set of character {@code c}.
+     *
+     * @param c        a character
+     * @param expected an expected item
+     * @return newly created {@code FirstSet}
+     */
+    static FirstSet of(char c, Expectation expected) {
+        return of(other -> other == c, c >= 128, expected);
+    }
+
+    /**
+     * Creates set of characters satisfying {@code predicate}. The predicate
+     * is tested against ASCII characters only, the rest is assumed to satisfy it.
+     *
+     * @param predicate a character predicate
+     * @param expected  an expected item
+     * @return newly created {@code FirstSet}
+     */
+    static FirstSet of(CharPredicate predicate, Expectation expected) {
+        return of(predicate, true, expected);
+    }
+
+    private static FirstSet of(CharPredicate predicate, boolean nonAscii, Expectation expected) {
+        long low = 0;
+        long high = 0;
+        for (char c = 0; c < 64; c++) {
+            if (predicate.test(c)) {
+                low |= 1L << c;
+            }
+            if (predicate.test((char) (c + 64))) {
+                high |= 1L << c;
+            }
+        }
+        return new FirstSet(low, high, nonAscii, Collections.singleton(expected));
+    }
+
+    /**
+     * Computes first set of {@code parser}.
+     *
+     * @param parser a parser
+     * @return a first set, or {@code null} if it cannot be determined,
+     * e.g. because parser may succeed without consuming any character
+     */
+    static FirstSet of(Parser<?, ?> parser) {
+        return of(parser, Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    private static FirstSet of(Parser<?, ?> parser, Set<Parser<?, ?>> visiting) {
+        if (!visiting.add(parser)) {
+            return null;
+        }
+        try {
+            if (parser instanceof CharParser) {
+                return ((CharParser<?>) parser).first;
+            } else if (parser instanceof SequenceParser) {
+                return of(((SequenceParser<?, ?, ?, ?>) parser).left, visiting);
+            } else if (parser instanceof RuleParser) {
+                Parser<?, ?> definition = ((RuleParser<?, ?>) parser).definition;
+                return definition == null ? null : of(definition, visiting);
+            } else if (parser instanceof FlatMapParser) {
+                return of(((FlatMapParser<?, ?, ?>) parser).parser, visiting);
+            } else if (parser instanceof MapParser) {
+                return of(((MapParser<?, ?, ?>) parser).parser, visiting);
+            } else if (parser instanceof FilterParser) {
+                return of(((FilterParser<?, ?>) parser).parser, visiting);
+            } else if (parser instanceof MemoParser) {
+                return of(((MemoParser<?, ?>) parser).parser, visiting);
+            } else if (parser instanceof RepeatParser) {
+                RepeatParser<?, ?, ?, ?> repeat = (RepeatParser<?, ?, ?, ?>) parser;
+                return repeat.min > 0 ? of(repeat.first, visiting) : null;
+            } else if (parser instanceof ChoiceParser) {
+                FirstSet union = null;
+                for (Parser<?, ?> alternative : ((ChoiceParser<?, ?>) parser).alternatives) {
+                    FirstSet first = of(alternative, visiting);
+                    if (first == null) {
+                        return null;
+                    }
+                    union = union == null ? first : union.union(first);
+                }
+                return union;
+            }
+            return null;
+        } finally {
+            visiting.remove(parser);
+        }
+    }
+
+    /**
+     * Creates union of this and {@code other} set.
+     *
+     * @param other other set
+     * @return newly created {@code FirstSet}
+     */
+    FirstSet union(FirstSet other) {
+        Set<Expectation> expectedSet = new LinkedHashSet<>(expected);
+        expectedSet.addAll(other.expected);
+        return new FirstSet(low | other.low, high | other.high, nonAscii || other.nonAscii,
+                Collections.unmodifiableSet(expectedSet));
+    }
+
+    /**
+     * Checks if match may start with {@code c}.
+     *
+     * @param c a character
+     * @return {@code true} if match may start with {@code c}, otherwise {@code false}
+     */
+    boolean contains(char c) {
+        if (c < 64) {
+            return (low & 1L << c) != 0;
+        } else if (c < 128) {
+            return (high & 1L << (c - 64)) != 0;
+        }
+        return nonAscii;
+    }
+
+    /**
+     * Gets items that are expected at first character.
+     *
+     * @return an unmodifiable set of expected items
+     */
+    Set<Expectation> expected() {
+        return expected;
+    }
+}
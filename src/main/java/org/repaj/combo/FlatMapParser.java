@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.function.Function;
+
+/**
+ * A parser that sequentially parses using a parser and parser obtained from its output.
+ *
+ * @author Konrad Kleczkowski
+ * @see Parser#flatMap(Function)
+ */
+public final class FlatMapParser<T, O, I> extends Combinator<O, I> {
+    final Parser<T, I> parser;
+    private final Function<? super T, Parser<O, I>> function;
+
+    FlatMapParser(Parser<T, I> parser, Function<? super T, Parser<O, I>> function) {
+        this.parser = parser;
+        this.function = function;
+    }
+
+    /**
+     * Gets a parser that parses first.
+     *
+     * @return a parser that parses first
+     */
+    public Parser<T, I> getParser() {
+        return parser;
+    }
+
+    /**
+     * Gets a function that gives parser that parses next.
+     *
+     * @return a function that gives parser that parses next
+     */
+    public Function<? super T, Parser<O, I>> getFunction() {
+        return function;
+    }
+
+    @Override
+    void enter(Trampoline trampoline, I input) {
+        trampoline.push(this);
+        trampoline.call(parser, input);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    void resume(Trampoline trampoline, Try<? extends Result<?, ?>> result) {
+        if (result.isSuccess()) {
+            Result<T, I> tiResult = (Result<T, I>) result.getUnchecked();
+            Parser<O, I> next = function.apply(tiResult.output);
+            if (next instanceof SucceedParser) {
+                // a step that only returns output needs no round through the engine
+                trampoline.complete(Results.success(((SucceedParser<O, I>) next).output, tiResult.input));
+            } else {
+                trampoline.call(next, tiResult.input);
+            }
+        } else {
+            trampoline.complete(result);
+        }
+    }
+}
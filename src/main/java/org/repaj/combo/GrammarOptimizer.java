@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.repaj.combo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A pass that rewrites combinator graph into an equivalent one that takes fewer steps to run.
+ * It fuses chains of maps and filters, flattens nested choices and chains of
+ * {@link Parser#orElse(java.util.function.Supplier) orElse} into one {@link ChoiceParser},
+ * removes {@link Parser#succeed(Object) succeed} from sequences and left-factors
+ * adjacent alternatives that start with the same parser, so {@code a b | a c}
+ * becomes {@code a (b | c)} and {@code a} is parsed once.
+ * <p>
+ * Nodes that are shared stay shared and rules are copied, so recursive grammars
+ * keep their shape. Parsers that are not built-in nodes are left as they are.
+ *
+ * @author Konrad Kleczkowski
+ * @see Parsers#optimize(Parser)
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+final class GrammarOptimizer {
+    private static final BiFunction<Object, Function, Object> APPLY = (output, function) -> function.apply(output);
+
+    private final Map<Parser<?, ?>, Parser<?, ?>> optimized = new IdentityHashMap<>();
+    private final Set<Parser<?, ?>> visiting = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private GrammarOptimizer() {
+    }
+
+    /**
+     * Optimizes {@code parser}.
+     *
+     * @param parser a parser
+     * @param <O>    type of output
+     * @param <I>    type of input
+     * @return an equivalent parser
+     */
+    static <O, I> Parser<O, I> optimize(Parser<O, I> parser) {
+        return new GrammarOptimizer().visit(parser);
+    }
+
+    private Parser visit(Parser parser) {
+        Parser result = optimized.get(parser);
+        if (result != null) {
+            return result;
+        }
+        if (!visiting.add(parser)) {
+            // a cycle that does not go through a rule, e.g. supplier of orElse that returns its owner
+            return parser;
+        }
+        try {
+            result = rewrite(parser);
+        } finally {
+            visiting.remove(parser);
+        }
+        optimized.put(parser, result);
+        return result;
+    }
+
+    private Parser rewrite(Parser parser) {
+        if (parser instanceof MapParser) {
+            MapParser map = (MapParser) parser;
+            Parser inner = visit(map.parser);
+            return inner == map.parser && !(inner instanceof MapParser) ? map : map(inner, map.getFunction());
+        } else if (parser instanceof FilterParser) {
+            return rewriteFilter((FilterParser) parser);
+        } else if (parser instanceof FlatMapParser) {
+            FlatMapParser flatMap = (FlatMapParser) parser;
+            Parser inner = visit(flatMap.parser);
+            return inner == flatMap.parser ? flatMap : new FlatMapParser(inner, flatMap.getFunction());
+        } else if (parser instanceof SequenceParser) {
+            return rewriteSequence((SequenceParser) parser);
+        } else if (parser instanceof ChoiceParser || parser instanceof OrElseParser) {
+            return rewriteChoice(parser);
+        } else if (parser instanceof RepeatParser) {
+            return rewriteRepeat((RepeatParser) parser);
+        } else if (parser instanceof MemoParser) {
+            MemoParser memo = (MemoParser) parser;
+            Parser inner = visit(memo.parser);
+            return inner == memo.parser ? memo : new MemoParser(inner, memo.memo);
+        } else if (parser instanceof RuleParser) {
+            return rewriteRule((RuleParser) parser);
+        }
+        return parser;
+    }
+
+    private static Parser map(Parser parser, Function function) {
+        if (parser instanceof MapParser) {
+            MapParser map = (MapParser) parser;
+            return new MapParser(map.parser, map.getFunction().andThen(function));
+        }
+        return new MapParser(parser, function);
+    }
+
+    private Parser rewriteFilter(FilterParser filter) {
+        Parser inner = visit(filter.parser);
+        Predicate predicate = filter.getPredicate();
+        if (inner instanceof FilterParser) {
+            FilterParser innerFilter = (FilterParser) inner;
+            Predicate innerPredicate = innerFilter.getPredicate();
+            return new FilterParser(innerFilter.parser, o -> innerPredicate.test(o) && predicate.test(o));
+        }
+        return inner == filter.parser ? filter : new FilterParser(inner, predicate);
+    }
+
+    private Parser rewriteSequence(SequenceParser sequence) {
+        Parser left = visit(sequence.left);
+        Parser right = visit(sequence.right);
+        BiFunction combiner = sequence.getCombiner();
+        if (left instanceof SucceedParser) {
+            Object output = ((SucceedParser) left).output;
+            return combiner == SequenceParser.keepRight() ? right : map(right, r -> combiner.apply(output, r));
+        } else if (right instanceof SucceedParser) {
+            Object output = ((SucceedParser) right).output;
+            return map(left, l -> combiner.apply(l, output));
+        }
+        return left == sequence.left && right == sequence.right
+                ? sequence
+                : new SequenceParser(left, right, combiner);
+    }
+
+    private Parser rewriteChoice(Parser parser) {
+        List<Parser> alternatives = new ArrayList<>();
+        if (parser instanceof OrElseParser) {
+            OrElseParser orElse = (OrElseParser) parser;
+            addAlternative(orElse.getParser(), alternatives);
+            // supplier is called once here instead of every time the first parser fails
+            addAlternative(Objects.requireNonNull((Parser) orElse.getParserSupplier().get()), alternatives);
+        } else {
+            List<Parser> original = ((ChoiceParser) parser).alternatives;
+            for (Parser alternative : original) {
+                addAlternative(alternative, alternatives);
+            }
+        }
+        alternatives = factor(alternatives);
+        if (parser instanceof ChoiceParser && sameElements(((ChoiceParser) parser).alternatives, alternatives)) {
+            return parser;
+        }
+        return choice(alternatives);
+    }
+
+    private void addAlternative(Parser alternative, List<Parser> alternatives) {
+        add(visit(alternative), alternatives);
+    }
+
+    private static void add(Parser parser, List<Parser> alternatives) {
+        if (parser instanceof ChoiceParser) {
+            alternatives.addAll(((ChoiceParser) parser).alternatives);
+        } else {
+            alternatives.add(parser);
+        }
+    }
+
+    private static Parser choice(List<Parser> alternatives) {
+        return alternatives.size() == 1 ? alternatives.get(0) : new ChoiceParser(alternatives);
+    }
+
+    // Only adjacent alternatives are factored, as moving alternative over another one
+    // would change which of them is tried first.
+
+    private static List<Parser> factor(List<Parser> alternatives) {
+        List<Parser> factored = new ArrayList<>();
+        int from = 0;
+        while (from < alternatives.size()) {
+            Parser leading = leading(alternatives.get(from));
+            // a cut in leading parser would no longer commit to alternatives that follow it
+            boolean factorable = leading != null && !mayCut(leading, newIdentitySet());
+            int to = from + 1;
+            while (factorable && to < alternatives.size() && leading(alternatives.get(to)) == leading) {
+                to++;
+            }
+            factored.add(to - from == 1 ? alternatives.get(from) : factor(leading, alternatives.subList(from, to)));
+            from = to;
+        }
+        return factored;
+    }
+
+    private static Parser leading(Parser parser) {
+        return parser instanceof SequenceParser ? ((SequenceParser) parser).left : null;
+    }
+
+    private static Set<Parser<?, ?>> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    private static boolean mayCut(Parser parser, Set<Parser<?, ?>> visited) {
+        if (parser == null || !visited.add(parser)) {
+            return false;
+        } else if (parser instanceof CutParser) {
+            return true;
+        } else if (parser instanceof MapParser) {
+            return mayCut(((MapParser) parser).parser, visited);
+        } else if (parser instanceof FilterParser) {
+            return mayCut(((FilterParser) parser).parser, visited);
+        } else if (parser instanceof SequenceParser) {
+            SequenceParser sequence = (SequenceParser) parser;
+            return mayCut(sequence.left, visited) || mayCut(sequence.right, visited);
+        } else if (parser instanceof ChoiceParser) {
+            for (Parser alternative : ((ChoiceParser<?, ?>) parser).alternatives) {
+                if (mayCut(alternative, visited)) {
+                    return true;
+                }
+            }
+            return false;
+        } else if (parser instanceof RepeatParser) {
+            RepeatParser repeat = (RepeatParser) parser;
+            return mayCut(repeat.first, visited) || mayCut((Parser) repeat.getSeparator().orElse(null), visited);
+        } else if (parser instanceof ConvertParser) {
+            return mayCut(((ConvertParser) parser).parser, visited);
+        } else if (parser instanceof PrimitiveRepeatParser) {
+            return mayCut(((PrimitiveRepeatParser) parser).parser, visited);
+        } else if (parser instanceof FlatMapParser || parser instanceof OrElseParser) {
+            // parsers they give are not known until parsing
+            return true;
+        }
+        // rules, memos and left-recursive rules are scopes of cuts inside them;
+        // parsers that are not combinators run parsers they are built of by their own engine
+        return false;
+    }
+
+    private static Parser factor(Parser leading, List<Parser> sequences) {
+        BiFunction combiner = ((SequenceParser) sequences.get(0)).getCombiner();
+        boolean sameCombiner = true;
+        for (Parser sequence : sequences) {
+            sameCombiner &= ((SequenceParser) sequence).getCombiner() == combiner;
+        }
+        List<Parser> rests = new ArrayList<>();
+        for (Parser sequence : sequences) {
+            SequenceParser s = (SequenceParser) sequence;
+            if (sameCombiner) {
+                add(s.right, rests);
+            } else {
+                // each rest remembers how its output is combined with output of leading parser
+                BiFunction own = s.getCombiner();
+                rests.add(map(s.right, r -> (Function) l -> own.apply(l, r)));
+            }
+        }
+        Parser rest = choice(factor(rests));
+        return new SequenceParser(leading, rest, sameCombiner ? combiner : APPLY);
+    }
+
+    private static boolean sameElements(List<Parser> left, List<Parser> right) {
+        if (left.size() != right.size()) {
+            return false;
+        }
+        for (int i = 0; i < left.size(); i++) {
+            if (left.get(i) != right.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Parser rewriteRepeat(RepeatParser repeat) {
+        Parser first = visit(repeat.first);
+        Parser separator = (Parser) repeat.getSeparator().orElse(null);
+        Parser optimizedSeparator = separator == null ? null : visit(separator);
+        if (first == repeat.first && optimizedSeparator == separator) {
+            return repeat;
+        }
+        return new RepeatParser(first, optimizedSeparator, repeat.min, repeat.getMax(), repeat.getCollector());
+    }
+
+    private Parser rewriteRule(RuleParser rule) {
+        Parser definition = rule.definition;
+        if (definition == null) {
+            return rule;
+        }
+        RuleParser copy = new RuleParser(rule.getName());
+        optimized.put(rule, copy);
+        copy.define(visit(definition));
+        return copy;
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.repaj.combo;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A parse of text that can be edited. Results of {@linkplain Parser#memoize() memoized}
+ * parsers are remembered together with range of text they examined, so after an edit
+ * only results whose range was touched by the edit are parsed again. Results after
+ * the edit are moved by difference of length, results before it are kept as they are.
+ * <p>
+ * Outputs of reused results are reused as they are, so they should not depend on
+ * absolute offsets. Failures after an edit are always parsed again, as their messages
+ * contain offsets. Parsers that are not built-in should read every character they depend on,
+ * rather than only test how many characters remain. Text is kept in a {@link PieceTable},
+ * so edits do not copy it.
+ *
+ * @author Konrad Kleczkowski
+ */
+public final class IncrementalParse<O> {
+    private final Parser<O, CharInput> parser;
+    private final PieceTable text;
+    private final Map<MemoParser<?, ?>, Map<Integer, Entry>> tables;
+    private final Try<Parser.Result<O, CharInput>> result;
+    private final boolean examinedEnd;
+
+    private IncrementalParse(Parser<O, CharInput> parser, PieceTable text,
+                             Map<MemoParser<?, ?>, Map<Integer, Entry>> tables) {
+        this.parser = parser;
+        this.text = text;
+        this.tables = tables;
+        Text view = new Text(text, tables);
+        this.result = parser.parse(CharInput.of(view));
+        this.examinedEnd = view.to >= text.length();
+    }
+
+    /**
+     * Parses {@code text} using {@code parser}.
+     *
+     * @param parser a parser
+     * @param text   a text
+     * @param <O>    type of output
+     * @return newly created parse
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public static <O> IncrementalParse<O> of(Parser<O, CharInput> parser, CharSequence text) {
+        return new IncrementalParse<>(Objects.requireNonNull(parser), PieceTable.of(text), new IdentityHashMap<>());
+    }
+
+    /**
+     * Gets parsed text.
+     *
+     * @return a text
+     */
+    public PieceTable getText() {
+        return text;
+    }
+
+    /**
+     * Gets result of parse.
+     *
+     * @return a {@code Try} of parse result
+     */
+    public Try<Parser.Result<O, CharInput>> getResult() {
+        return result;
+    }
+
+    /**
+     * Tests whether parsing examined the last character or the end of text,
+     * so result may change when text is appended.
+     *
+     * @return {@code true} if parsing examined the end of text
+     */
+    boolean examinedEnd() {
+        return examinedEnd;
+    }
+
+    /**
+     * Parses text where {@code removed} characters starting at {@code offset} are replaced
+     * by {@code inserted}, reusing results of this parse that the edit does not affect.
+     * This parse is left untouched.
+     *
+     * @param offset   an offset where the edit starts
+     * @param removed  number of removed characters
+     * @param inserted inserted characters
+     * @return newly created parse of edited text
+     * @throws IndexOutOfBoundsException if {@code offset} or {@code removed} is negative,
+     *                                   or removed characters are out of text
+     * @throws NullPointerException      if {@code inserted} is {@code null}
+     */
+    public IncrementalParse<O> edit(int offset, int removed, CharSequence inserted) {
+        PieceTable edited = text.edit(offset, removed, inserted);
+        int end = offset + removed;
+        int delta = edited.length() - text.length();
+        Map<MemoParser<?, ?>, Map<Integer, Entry>> kept = new IdentityHashMap<>();
+        tables.forEach((memo, table) -> {
+            Map<Integer, Entry> keptTable = new HashMap<>();
+            table.forEach((position, entry) -> {
+                int from = position + entry.from;
+                int to = position + entry.to;
+                // a result that examined the first character may depend on where text starts,
+                // as one that examined the end depends on where it ends
+                if (from > 0 && end <= from) {
+                    if (entry.failure == null) {
+                        keptTable.put(position + delta, entry);
+                    }
+                } else if (offset > to) {
+                    keptTable.put(position, entry);
+                }
+            });
+            kept.put(memo, keptTable);
+        });
+        return new IncrementalParse<>(parser, edited, kept);
+    }
+
+    /**
+     * A view of text of one parse that tracks which characters are read,
+     * and remembers results of memoized parsers.
+     */
+    static final class Text implements CharSequence {
+        private final PieceTable text;
+        private final Map<MemoParser<?, ?>, Map<Integer, Entry>> tables;
+        private int from;
+        private int to;
+
+        Text(PieceTable text, Map<MemoParser<?, ?>, Map<Integer, Entry>> tables) {
+            this.text = text;
+            this.tables = tables;
+            this.to = -1;
+        }
+
+        /**
+         * Records that character at {@code index}, or the end of text if {@code index}
+         * is length of text, was examined.
+         *
+         * @param index an index
+         */
+        void examine(int index) {
+            if (index < from) {
+                from = index;
+            }
+            if (index > to) {
+                to = index;
+            }
+        }
+
+        /**
+         * Parses using parser of {@code memo}, or reuses remembered result.
+         *
+         * @param memo       a memoized parser
+         * @param trampoline an engine
+         * @param input      an input
+         * @param <O>        type of output
+         */
+        <O> void enter(MemoParser<O, CharInput> memo, Trampoline trampoline, CharInput input) {
+            Map<Integer, Entry> table = tables.computeIfAbsent(memo, m -> new HashMap<>());
+            int offset = input.getOffset();
+            Entry entry = table.get(offset);
+            if (entry != null) {
+                examine(offset + entry.from);
+                examine(offset + entry.to);
+                if (entry.failureOffset >= 0) {
+                    input.tracker().record(offset + entry.failureOffset, entry.expected);
+                }
+                trampoline.complete(entry.failure != null
+                        ? entry.failure
+                        : Results.success(entry.output, input.advance(entry.length)));
+                return;
+            }
+            trampoline.push(new Record(table, input));
+            trampoline.call(memo.parser, input);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            examine(index);
+            return text.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return text.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+
+        // cuts inside are scoped, as with results remembered by memo of the parser
+
+        private final class Record implements Trampoline.Continuation, Trampoline.CutScope {
+            private final Map<Integer, Entry> table;
+            private final CharInput input;
+            private final int outerFrom;
+            private final int outerTo;
+            private final FailureTracker.Failures outerFailures;
+
+            Record(Map<Integer, Entry> table, CharInput input) {
+                this.table = table;
+                this.input = input;
+                this.outerFrom = from;
+                this.outerTo = to;
+                this.outerFailures = input.tracker().begin();
+                from = input.getOffset();
+                to = input.getOffset();
+            }
+
+            @Override
+            public void resume(Trampoline trampoline, Try<? extends Parser.Result<?, ?>> result) {
+                int offset = input.getOffset();
+                FailureTracker.Failures failures = input.tracker().end(outerFailures);
+                table.put(offset, new Entry(result, offset, from, to, failures));
+                from = Math.min(from, outerFrom);
+                to = Math.max(to, outerTo);
+                trampoline.complete(result);
+            }
+        }
+    }
+
+    /**
+     * A remembered result, with offsets relative to input it was parsed at.
+     */
+    private static final class Entry {
+        final Object output;
+        final int length;
+        final Try<? extends Parser.Result<?, ?>> failure;
+        final int from;
+        final int to;
+        final int failureOffset;
+        final Set<Expectation> expected;
+
+        Entry(Try<? extends Parser.Result<?, ?>> result, int offset, int from, int to, FailureTracker.Failures failures) {
+            if (result.isSuccess()) {
+                Parser.Result<?, ?> success = result.getUnchecked();
+                this.output = success.output;
+                this.length = ((CharInput) success.input).getOffset() - offset;
+                this.failure = null;
+            } else {
+                this.output = null;
+                this.length = 0;
+                this.failure = result;
+            }
+            this.from = from - offset;
+            this.to = to - offset;
+            this.failureOffset = failures.offset < 0 ? -1 : failures.offset - offset;
+            this.expected = failures.expected;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A parser of directly left-recursive rule. Results are grown from a seed,
+ * as described by Warth, Douglass and Millstein in
+ * <i>Packrat Parsers Can Support Left Recursion</i>: the leftmost reference to the rule
+ * first fails, then the body is parsed again with the last result as the seed, as long as
+ * the result ends further than the seed. Seeds are kept by {@link Trampoline} for one parse,
+ * so the parser may be used by many threads at once, and the body is run by the same engine,
+ * so cuts inside it are scoped by the rule and depth of Java stack stays constant.
+ * <p>
+ * Ends of {@link CharInput} are compared by offset; ends of other inputs are compared by equality,
+ * so growing stops once the body reaches an end it has already reached.
+ *
+ * @author Konrad Kleczkowski
+ * @see Parser#leftRecursive(Function)
+ */
+public final class LeftRecursiveParser<O, I> extends Combinator<O, I> {
+    private final Parser<O, I> body;
+
+    LeftRecursiveParser(Function<? super Parser<O, I>, ? extends Parser<O, I>> definition) {
+        this.body = Objects.requireNonNull(definition.apply(this));
+    }
+
+    /**
+     * Gets a parser that defines the rule.
+     *
+     * @return a parser that defines the rule
+     */
+    public Parser<O, I> getBody() {
+        return body;
+    }
+
+    @Override
+    void enter(Trampoline trampoline, I input) {
+        Map<Object, Try<? extends Result<?, ?>>> seeds = trampoline.seeds(this);
+        Try<? extends Result<?, ?>> seed = seeds.get(input);
+        if (seed != null) {
+            trampoline.complete(seed);
+            return;
+        }
+        seeds.put(input, Try.failLazily(() -> new NoSuchElementException("left recursion")));
+        new Growth(seeds, input).proceed(trampoline);
+    }
+
+    // cuts inside are scoped, so a grown seed does not depend on where the rule is used
+
+    private final class Growth implements Trampoline.Continuation, Trampoline.CutScope {
+        private final Map<Object, Try<? extends Result<?, ?>>> seeds;
+        private final I input;
+        private Object end;
+        private Set<Object> reached;
+
+        Growth(Map<Object, Try<? extends Result<?, ?>>> seeds, I input) {
+            this.seeds = seeds;
+            this.input = input;
+        }
+
+        void proceed(Trampoline trampoline) {
+            trampoline.push(this);
+            trampoline.call(body, input);
+        }
+
+        @Override
+        public void resume(Trampoline trampoline, Try<? extends Result<?, ?>> result) {
+            if (result.isSuccess() && grows(result.getUnchecked().input)) {
+                seeds.put(input, result);
+                end = result.getUnchecked().input;
+                proceed(trampoline);
+                return;
+            }
+            if (end == null) {
+                // not even the seed was parsed, so the failure of body is the result
+                seeds.put(input, result);
+                trampoline.complete(result);
+            } else {
+                trampoline.complete(seeds.get(input));
+            }
+        }
+
+        private boolean grows(Object next) {
+            if (end == null) {
+                return true;
+            }
+            if (next instanceof CharInput) {
+                return ((CharInput) end).compareTo((CharInput) next) < 0;
+            }
+            if (reached == null) {
+                reached = new HashSet<>();
+                reached.add(end);
+            }
+            return reached.add(next);
+        }
+    }
+}
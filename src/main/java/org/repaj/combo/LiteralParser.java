@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+/**
+ * A parser that handles a literal. The output is the literal itself.
+ *
+ * @author Konrad Kleczkowski
+ * @see CharParsers#literal(String)
+ */
+public final class LiteralParser extends CharParser<String> {
+    final String literal;
+    private final Expectation expected;
+
+    LiteralParser(String literal) {
+        this(literal, new Expectation('"' + literal + '"'));
+    }
+
+    private LiteralParser(String literal, Expectation expected) {
+        super(literal.isEmpty() ? null : FirstSet.of(literal.charAt(0), expected));
+        this.literal = literal;
+        this.expected = expected;
+    }
+
+    /**
+     * Gets a literal.
+     *
+     * @return a literal
+     */
+    public String getLiteral() {
+        return literal;
+    }
+
+    @Override
+    public Try<Result<String, CharInput>> parse(CharInput input) {
+        return matches(input)
+                ? Results.success(literal, input.advance(literal.length()))
+                : CharParsers.mismatch(expected, input);
+    }
+
+    private boolean matches(CharInput input) {
+        CharSequence sequence = input.getSequence();
+        int offset = input.getOffset();
+        if (sequence instanceof String) {
+            return ((String) sequence).startsWith(literal, offset);
+        }
+        // characters are compared before length, so only characters that decide are read
+        int length = literal.length();
+        int available = Math.min(length, sequence.length() - offset);
+        for (int i = 0; i < available; i++) {
+            if (sequence.charAt(offset + i) != literal.charAt(i)) {
+                return false;
+            }
+        }
+        if (available < length) {
+            input.examineEnd();
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.function.Function;
+
+/**
+ * A parser that maps output of a parser.
+ *
+ * @author Konrad Kleczkowski
+ * @see Parser#map(Function)
+ */
+public final class MapParser<T, O, I> extends Combinator<O, I> {
+    final Parser<T, I> parser;
+    private final Function<? super T, ? extends O> function;
+
+    MapParser(Parser<T, I> parser, Function<? super T, ? extends O> function) {
+        this.parser = parser;
+        this.function = function;
+    }
+
+    /**
+     * Gets a parser whose output is mapped.
+     *
+     * @return a parser whose output is mapped
+     */
+    public Parser<T, I> getParser() {
+        return parser;
+    }
+
+    /**
+     * Gets a mapping function.
+     *
+     * @return a mapping function
+     */
+    public Function<? super T, ? extends O> getFunction() {
+        return function;
+    }
+
+    @Override
+    void enter(Trampoline trampoline, I input) {
+        trampoline.push(this);
+        trampoline.call(parser, input);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    void resume(Trampoline trampoline, Try<? extends Result<?, ?>> result) {
+        if (result.isSuccess()) {
+            Result<T, I> tiResult = (Result<T, I>) result.getUnchecked();
+            trampoline.complete(Results.success(function.apply(tiResult.output), tiResult.input));
+        } else {
+            trampoline.complete(result);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.Map;
+
+/**
+ * A parser that remembers results of a parser for each input, either in a table
+ * of its own or, if it has none, in a table of the parse, kept by {@link Trampoline}.
+ *
+ * @author Konrad Kleczkowski
+ * @see Parser#memoize(Map)
+ */
+public final class MemoParser<O, I> extends Combinator<O, I> {
+    final Parser<O, I> parser;
+    final Map<I, Try<Result<O, I>>> memo;
+
+    MemoParser(Parser<O, I> parser, Map<I, Try<Result<O, I>>> memo) {
+        this.parser = parser;
+        this.memo = memo;
+    }
+
+    /**
+     * Gets a parser whose results are remembered.
+     *
+     * @return a parser whose results are remembered
+     */
+    public Parser<O, I> getParser() {
+        return parser;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    void enter(Trampoline trampoline, I input) {
+        if (input instanceof CharInput && ((CharInput) input).getSequence() instanceof IncrementalParse.Text) {
+            IncrementalParse.Text text = (IncrementalParse.Text) ((CharInput) input).getSequence();
+            text.enter((MemoParser<O, CharInput>) this, trampoline, (CharInput) input);
+            return;
+        }
+        Map<I, Try<Result<O, I>>> memo = this.memo != null ? this.memo : trampoline.memo(this);
+        Try<Result<O, I>> result = memo.get(input);
+        if (result != null) {
+            trampoline.complete(result);
+            return;
+        }
+        trampoline.push(new Store(memo, input));
+        trampoline.call(parser, input);
+    }
+
+    // cuts inside are scoped, so remembered result does not depend on whether
+    // it was parsed or remembered
+
+    private final class Store implements Trampoline.Continuation, Trampoline.CutScope {
+        private final Map<I, Try<Result<O, I>>> memo;
+        private final I input;
+
+        Store(Map<I, Try<Result<O, I>>> memo, I input) {
+            this.memo = memo;
+            this.input = input;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void resume(Trampoline trampoline, Try<? extends Result<?, ?>> result) {
+            memo.put(input, (Try<Result<O, I>>) result);
+            trampoline.memoized(memo);
+            trampoline.complete(result);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.function.Supplier;
+
+/**
+ * A parser that falls into supplied parser if a parser fails.
+ *
+ * @author Konrad Kleczkowski
+ * @see Parser#orElse(Supplier)
+ */
+public final class OrElseParser<O, I> extends Combinator<O, I> {
+    private final Parser<O, I> parser;
+    private final Supplier<Parser<O, I>> parserSupplier;
+
+    OrElseParser(Parser<O, I> parser, Supplier<Parser<O, I>> parserSupplier) {
+        this.parser = parser;
+        this.parserSupplier = parserSupplier;
+    }
+
+    /**
+     * Gets a parser that is attempted first.
+     *
+     * @return a parser that is attempted first
+     */
+    public Parser<O, I> getParser() {
+        return parser;
+    }
+
+    /**
+     * Gets a supplier of parser that is attempted if the first one fails.
+     *
+     * @return a supplier of parser that is attempted if the first one fails
+     */
+    public Supplier<Parser<O, I>> getParserSupplier() {
+        return parserSupplier;
+    }
+
+    @Override
+    void enter(Trampoline trampoline, I input) {
+        trampoline.push(new Fallback(input));
+        trampoline.call(parser, input);
+    }
+
+    private final class Fallback extends Trampoline.Backtrack {
+        private I input;
+
+        Fallback(I input) {
+            this.input = input;
+        }
+
+        @Override
+        public void resume(Trampoline trampoline, Try<? extends Result<?, ?>> result) {
+            if (result.isSuccess() || isCommitted()) {
+                trampoline.complete(result);
+            } else {
+                trampoline.call(parserSupplier.get(), input);
+            }
+        }
+
+        @Override
+        void release() {
+            input = null;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.repaj.combo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A parser that attempts to parse using all alternatives at once and returns result
+ * of the first alternative, in order of alternatives, that succeeds. The first alternative
+ * is parsed by calling thread, the other ones on a {@link ForkJoinPool}; once result
+ * is known, alternatives that are still parsed are cancelled.
+ * <p>
+ * Alternatives parse the same input, so inputs other than {@link CharInput} must be immutable.
+ * A {@code CharInput} is forked for every alternative, and failures of alternatives that
+ * are before the successful one are recorded as if they were parsed in order.
+ *
+ * @author Konrad Kleczkowski
+ * @see Parsers#parallelChoice(List, ForkJoinPool)
+ */
+public final class ParallelChoiceParser<O, I> implements Parser<O, I> {
+    private final List<Parser<O, I>> alternatives;
+    private final ForkJoinPool pool;
+
+    ParallelChoiceParser(List<? extends Parser<O, I>> alternatives, ForkJoinPool pool) {
+        this.alternatives = Collections.unmodifiableList(new ArrayList<>(alternatives));
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    /**
+     * Gets an unmodifiable list of alternatives.
+     *
+     * @return an unmodifiable list of alternatives
+     */
+    public List<Parser<O, I>> getAlternatives() {
+        return alternatives;
+    }
+
+    @Override
+    public Try<Result<O, I>> parse(I input) {
+        List<Attempt> attempts = new ArrayList<>(alternatives.size());
+        for (Parser<O, I> alternative : alternatives.subList(1, alternatives.size())) {
+            Attempt attempt = new Attempt(alternative, fork(input));
+            attempts.add(attempt);
+            pool.execute(attempt);
+        }
+        try {
+            Try<Result<O, I>> result = alternatives.get(0).parse(input);
+            for (int i = 0; i < attempts.size() && !result.isSuccess(); i++) {
+                Attempt attempt = attempts.get(i);
+                result = attempt.join();
+                if (input instanceof CharInput) {
+                    ((CharInput) input).recordFailures((CharInput) attempt.input);
+                }
+            }
+            return result.isSuccess() ? rebase(result, input) : result;
+        } finally {
+            for (Attempt attempt : attempts) {
+                attempt.cancellation.cancel();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <I> I fork(I input) {
+        return input instanceof CharInput ? (I) ((CharInput) input).fork() : input;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <O, I> Try<Result<O, I>> rebase(Try<Result<O, I>> result, I input) {
+        if (!(input instanceof CharInput)) {
+            return result;
+        }
+        Result<O, I> success = result.getUnchecked();
+        I rebased = (I) ((CharInput) input).at((CharInput) success.input);
+        return rebased == success.input ? result : Results.success(success.output, rebased);
+    }
+
+    @SuppressWarnings("serial") // tasks are never serialized
+    private final class Attempt extends RecursiveTask<Try<Result<O, I>>> {
+        private final Parser<O, I> parser;
+        private final I input;
+        private final Cancellation cancellation = new Cancellation();
+
+        Attempt(Parser<O, I> parser, I input) {
+            this.parser = parser;
+            this.input = input;
+        }
+
+        @Override
+        protected Try<Result<O, I>> compute() {
+            if (cancellation.isCancelled()) {
+                return null;
+            }
+            Cancellation outer = cancellation.enter();
+            try {
+                return parser.parse(input);
+            } catch (CancellationException e) {
+                return null;
+            } finally {
+                Cancellation.restore(outer);
+            }
+        }
+    }
+}
@@ -22,12 +22,27 @@
 
 package org.repaj.combo;
 
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 /**
  * An interface describing parser combinator.
+ * <p>
+ * Parsers created by combinators of this interface and {@link RepetitionParsers}
+ * are run in constant depth of Java stack, no matter how long the chain of sequenced
+ * steps is. Only parsers implemented directly, e.g. with lambda, are called recursively.
+ * <p>
+ * Combinators create instances of public node classes, e.g. {@link SequenceParser},
+ * {@link ChoiceParser}, {@link MapParser}, {@link RepeatParser}, {@link LiteralParser},
+ * {@link RegexParser} or {@link RuleParser}, which expose parsers they are built of,
+ * so grammars can be inspected and transformed.
  *
  * @author Konrad Kleczkowski
  */
@@ -42,7 +57,28 @@ public interface Parser<O, I> {
      * @return newly created {@code Parser}
      */
     static <O, I> Parser<O, I> succeed(O output) {
-        return input -> Try.success(new Result<>(output, input));
+        return new SucceedParser<>(output);
+    }
+
+    /**
+     * Creates parser of rule that may refer to itself as its leftmost element,
+     * like {@code expr = expr '+' term | term}. The rule is defined by {@code definition},
+     * which receives the rule itself. The leftmost reference first fails, then the rule is
+     * reparsed with the last successful result as long as the result ends further,
+     * so left-associative operators are parsed directly.
+     * <p>
+     * Results are remembered for each input within one parse only, so the parser
+     * may be used by many threads at once. The rule must refer to itself through combinators,
+     * as a parser implemented directly, e.g. with lambda, that calls it starts another parse.
+     *
+     * @param definition a function that defines the rule using reference to it
+     * @param <O>        type of output
+     * @param <I>        type of input
+     * @return newly created {@code Parser} of the rule
+     * @throws NullPointerException if {@code definition} returns {@code null}
+     */
+    static <O, I> Parser<O, I> leftRecursive(Function<? super Parser<O, I>, ? extends Parser<O, I>> definition) {
+        return new LeftRecursiveParser<>(definition);
     }
 
     /**
@@ -61,7 +97,35 @@ public interface Parser<O, I> {
      * @return newly created {@code Parser} that parses sequentially
      */
     default <P> Parser<P, I> flatMap(Function<? super O, Parser<P, I>> function) {
-        return input -> parse(input).flatMap(oiResult -> function.apply(oiResult.output).parse(oiResult.input));
+        return new FlatMapParser<>(this, function);
+    }
+
+    /**
+     * Creates parser that sequentially parses using this parser and {@code next}
+     * and combines their outputs using {@code combiner}.
+     *
+     * @param next     a parser that parses next
+     * @param combiner a function that combines outputs
+     * @param <P>      type of output of {@code next}
+     * @param <R>      type of combined output
+     * @return newly created {@code Parser} that parses sequentially
+     * @throws NullPointerException if {@code next} or {@code combiner} is {@code null}
+     */
+    default <P, R> Parser<R, I> then(Parser<P, I> next, BiFunction<? super O, ? super P, ? extends R> combiner) {
+        return new SequenceParser<>(this, Objects.requireNonNull(next), Objects.requireNonNull(combiner));
+    }
+
+    /**
+     * Creates parser that sequentially parses using this parser and {@code next}
+     * and returns output of {@code next}.
+     *
+     * @param next a parser that parses next
+     * @param <P>  type of output of {@code next}
+     * @return newly created {@code Parser} that parses sequentially
+     * @throws NullPointerException if {@code next} is {@code null}
+     */
+    default <P> Parser<P, I> then(Parser<P, I> next) {
+        return then(next, SequenceParser.keepRight());
     }
 
     /**
@@ -72,7 +136,49 @@ public interface Parser<O, I> {
      * @return newly created {@code Parser} that maps output
      */
     default <P> Parser<P, I> map(Function<? super O, ? extends P> function) {
-        return flatMap(o -> succeed(function.apply(o)));
+        return new MapParser<>(this, function);
+    }
+
+    /**
+     * Creates parser that parses using this parser and then uses {@code function} to map
+     * to an {@code int}.
+     *
+     * @param function a mapping function
+     * @return newly created {@code IntParser} that maps output
+     */
+    default IntParser<I> mapToInt(ToIntFunction<? super O> function) {
+        return new PrimitiveParsers.OfInt<>(new ConvertParser<Result<O, I>, Object, I>(this, success -> {
+            Result<O, I> oiResult = success.getUnchecked();
+            return Results.successInt(function.applyAsInt(oiResult.output), oiResult.input);
+        }));
+    }
+
+    /**
+     * Creates parser that parses using this parser and then uses {@code function} to map
+     * to a {@code long}.
+     *
+     * @param function a mapping function
+     * @return newly created {@code LongParser} that maps output
+     */
+    default LongParser<I> mapToLong(ToLongFunction<? super O> function) {
+        return new PrimitiveParsers.OfLong<>(new ConvertParser<Result<O, I>, Object, I>(this, success -> {
+            Result<O, I> oiResult = success.getUnchecked();
+            return Results.successLong(function.applyAsLong(oiResult.output), oiResult.input);
+        }));
+    }
+
+    /**
+     * Creates parser that parses using this parser and then uses {@code function} to map
+     * to a {@code double}.
+     *
+     * @param function a mapping function
+     * @return newly created {@code DoubleParser} that maps output
+     */
+    default DoubleParser<I> mapToDouble(ToDoubleFunction<? super O> function) {
+        return new PrimitiveParsers.OfDouble<>(new ConvertParser<Result<O, I>, Object, I>(this, success -> {
+            Result<O, I> oiResult = success.getUnchecked();
+            return Results.successDouble(function.applyAsDouble(oiResult.output), oiResult.input);
+        }));
     }
 
     /**
@@ -83,7 +189,7 @@ public interface Parser<O, I> {
      * @return newly created {@code Parser} that filters output
      */
     default Parser<O, I> filter(Predicate<? super O> predicate) {
-        return input -> parse(input).filter(oiResult -> predicate.test(oiResult.output));
+        return new FilterParser<>(this, predicate);
     }
 
     /**
@@ -95,7 +201,46 @@ public interface Parser<O, I> {
      * @return newly created {@code Parser} that is alternative of this and supplied parser
      */
     default Parser<O, I> orElse(Supplier<Parser<O, I>> parserSupplier) {
-        return input -> parse(input).orElseTry(() -> parserSupplier.get().parse(input));
+        return new OrElseParser<>(this, parserSupplier);
+    }
+
+    /**
+     * Creates parser that parses using this parser and then {@linkplain Parsers#cut() cuts},
+     * so once this parser succeeds, enclosing alternatives are not tried anymore.
+     *
+     * @return newly created {@code Parser} that commits after this parser
+     * @see CutParser
+     */
+    default Parser<O, I> commit() {
+        return then(Parsers.cut(), SequenceParser.keepLeft());
+    }
+
+    /**
+     * Creates parser that remembers results of this parser for each input it was applied to,
+     * so this parser is never run twice on the same input. Failures are remembered as well.
+     * Results are kept only for one parse, so the parser may be used by many threads at once
+     * and nothing is kept after parsing ends; a parse started by calling {@link #parse(Object)}
+     * from within a parser does not share them. {@link #memoize(Map)} keeps results across parses.
+     * Within {@link IncrementalParse} results are remembered by the parse instead,
+     * so they can be reused after the text is edited.
+     *
+     * @return newly created {@code Parser} that memoizes results
+     */
+    default Parser<O, I> memoize() {
+        return new MemoParser<>(this, null);
+    }
+
+    /**
+     * Creates parser that remembers results of this parser for each input in {@code memo}.
+     * Inputs are compared using {@link Object#equals(Object)}, so an input type with
+     * meaningful equality (e.g. by position) should be used.
+     *
+     * @param memo a table of remembered results
+     * @return newly created {@code Parser} that memoizes results
+     * @throws NullPointerException if {@code memo} is {@code null}
+     */
+    default Parser<O, I> memoize(Map<I, Try<Result<O, I>>> memo) {
+        return new MemoParser<>(this, Objects.requireNonNull(memo));
     }
 
     /**
@@ -119,6 +264,20 @@ public interface Parser<O, I> {
             this.input = input;
         }
 
+        /**
+         * Creates successful {@code Try} of parse result, for parsers implemented directly,
+         * e.g. with lambda, that would otherwise run {@link Parser#succeed(Object)}.
+         *
+         * @param output an output
+         * @param input  an input
+         * @param <O>    type of output
+         * @param <I>    type of input
+         * @return a successful {@code Try}
+         */
+        public static <O, I> Try<Result<O, I>> success(O output, I input) {
+            return Results.success(output, input);
+        }
+
         /**
          * Gets input.
          *
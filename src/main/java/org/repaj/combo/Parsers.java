@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A set of general parsers.
+ *
+ * @author Konrad Kleczkowski
+ */
+public class Parsers {
+    /**
+     * Rewrites {@code parser} into an equivalent one that takes fewer steps to run.
+     * Chains of {@link Parser#map(java.util.function.Function)} and
+     * {@link Parser#filter(java.util.function.Predicate)} are fused,
+     * nested choices and chains of
+     * {@link Parser#orElse(java.util.function.Supplier)} are flattened into one
+     * {@link ChoiceParser}, and {@link Parser#succeed(Object)} is removed from sequences.
+     * Adjacent alternatives that start with the same parser instance are left-factored,
+     * e.g. {@code a.then(b).orElse(() -> a.then(c))} becomes {@code a.then(b | c)},
+     * so {@code a} is not parsed again when {@code b} fails.
+     * Suppliers of {@code orElse} are called once, during optimization, so they should
+     * always give the same parser.
+     *
+     * @param parser a parser to optimize
+     * @param <O>    type of output
+     * @param <I>    type of input
+     * @return an equivalent parser
+     * @throws NullPointerException if {@code parser} is {@code null}
+     */
+    public static <O, I> Parser<O, I> optimize(Parser<O, I> parser) {
+        return GrammarOptimizer.optimize(Objects.requireNonNull(parser));
+    }
+
+    /**
+     * Returns parser that commits to alternatives taken so far. After it succeeds,
+     * enclosing choices, {@code orElse} and repetitions fail when the alternative being
+     * parsed fails, instead of trying other one, e.g.
+     * <pre>{@code
+     * Parser<Statement, CharInput> statement = Parsers.choice(
+     *         CharParsers.literal("if").then(Parsers.cut()).then(ifStatement),
+     *         CharParsers.literal("while").then(Parsers.cut()).then(whileStatement),
+     *         expressionStatement);
+     * }</pre>
+     * A cut is scoped by the innermost enclosing {@link RuleParser} or {@link MemoParser}.
+     *
+     * @param <I> type of input
+     * @return a parser that commits
+     * @see CutParser
+     */
+    @SuppressWarnings("unchecked")
+    public static <I> Parser<Void, I> cut() {
+        return (Parser<Void, I>) CutParser.INSTANCE;
+    }
+
+    /**
+     * Creates named rule that is defined later using {@link RuleParser#define(Parser)}.
+     * Rules may refer to each other or to themselves, e.g.
+     * <pre>{@code
+     * RuleParser<Integer, CharInput> term = Parsers.rule("term");
+     * term.define(Parsers.choice(
+     *         CharParsers.literal("(").then(term).then(CharParsers.literal(")"), (t, p) -> t),
+     *         CharParsers.integer().boxed()));
+     * }</pre>
+     *
+     * @param name a name of rule
+     * @param <O>  type of output
+     * @param <I>  type of input
+     * @return newly created rule
+     * @throws NullPointerException if {@code name} is {@code null}
+     */
+    public static <O, I> RuleParser<O, I> rule(String name) {
+        return new RuleParser<>(name);
+    }
+
+    /**
+     * Creates parser that attempts to parse using {@code alternatives} in order and returns
+     * result of the first one that succeeds. If all alternatives fail, newly created parser
+     * fails using last fail message.
+     *
+     * @param alternatives alternative parsers
+     * @param <O>          type of output
+     * @param <I>          type of input
+     * @return described parser
+     * @throws IllegalArgumentException if there are no alternatives
+     * @see #choice(List)
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    public static <O, I> Parser<O, I> choice(Parser<O, I>... alternatives) {
+        return choice(Arrays.asList(alternatives));
+    }
+
+    /**
+     * Creates parser that attempts to parse using {@code alternatives} in order and returns
+     * result of the first one that succeeds. If all alternatives fail, newly created parser
+     * fails using last fail message.
+     * <p>
+     * When parsing {@link CharInput}, the next character is looked up in a table of alternatives
+     * that may start with it, so alternatives that would certainly fail are not attempted.
+     * It is known for alternatives that begin with parsers of {@link CharParsers}
+     * other than regex; other alternatives are always attempted.
+     *
+     * @param alternatives alternative parsers
+     * @param <O>          type of output
+     * @param <I>          type of input
+     * @return described parser
+     * @throws IllegalArgumentException if there are no alternatives
+     */
+    public static <O, I> Parser<O, I> choice(List<? extends Parser<O, I>> alternatives) {
+        if (alternatives.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
+        return new ChoiceParser<>(alternatives);
+    }
+
+    /**
+     * Creates parser that attempts to parse using all {@code alternatives} at once, on the common
+     * {@link ForkJoinPool}, and returns result of the first one, in order of alternatives,
+     * that succeeds. Alternatives that are still parsed when result is known are cancelled.
+     * If all alternatives fail, newly created parser fails using last fail message.
+     * <p>
+     * It pays off only when alternatives take long to fail, e.g. large sub-grammars that
+     * rarely match. As alternatives are run by many threads at once, they must not be memoized
+     * with a map that is not thread-safe.
+     *
+     * @param alternatives alternative parsers
+     * @param <O>          type of output
+     * @param <I>          type of input
+     * @return described parser
+     * @throws IllegalArgumentException if there are no alternatives
+     * @see ParallelChoiceParser
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    public static <O, I> Parser<O, I> parallelChoice(Parser<O, I>... alternatives) {
+        return parallelChoice(Arrays.asList(alternatives), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates parser that attempts to parse using all {@code alternatives} at once, on {@code pool},
+     * and returns result of the first one, in order of alternatives, that succeeds.
+     *
+     * @param alternatives alternative parsers
+     * @param pool         a pool that runs alternatives other than the first one
+     * @param <O>          type of output
+     * @param <I>          type of input
+     * @return described parser
+     * @throws IllegalArgumentException if there are no alternatives
+     * @throws NullPointerException     if {@code pool} is {@code null}
+     * @see #parallelChoice(Parser[])
+     */
+    public static <O, I> Parser<O, I> parallelChoice(List<? extends Parser<O, I>> alternatives, ForkJoinPool pool) {
+        if (alternatives.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
+        return new ParallelChoiceParser<>(alternatives, pool);
+    }
+
+    /**
+     * Creates sequential stream of outputs of records parsed by {@code parser} one after another
+     * from {@code input}. Each record is parsed when stream advances to it, so outputs are
+     * never gathered and the first one is available as soon as it is parsed. The stream ends
+     * at the first record that fails to parse, as {@link RepetitionParsers#zeroOrMore(Parser)} stops.
+     * <p>
+     * Records are not checked to consume input, as input may be mutable,
+     * e.g. a {@link org.repaj.combo.lexer.StreamTokenizer}; a record that consumes nothing
+     * makes the stream infinite.
+     *
+     * @param parser a parser of one record
+     * @param input  an input
+     * @param <O>    type of output
+     * @param <I>    type of input
+     * @return described stream
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public static <O, I> Stream<O> stream(Parser<O, I> parser, I input) {
+        return StreamSupport.stream(new RecordSpliterator<>(parser, input), false);
+    }
+
+    /**
+     * Creates stream of outputs of all remaining records of {@code input} that are separated
+     * by characters that match {@code boundary}, as
+     * {@link RepetitionParsers#parallelRecords(Parser, CharPredicate)} parses them.
+     * Each record is parsed when stream advances to it, and the stream splits remaining text
+     * at boundaries, so it can be {@linkplain Stream#parallel() parallel}. A record that fails
+     * to parse is thrown by terminal operation as {@link java.util.InputMismatchException}.
+     *
+     * @param parser   a parser of one record
+     * @param input    an input
+     * @param boundary a predicate of characters that separate records
+     * @param <O>      type of output
+     * @return described stream
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public static <O> Stream<O> stream(Parser<O, CharInput> parser, CharInput input, CharPredicate boundary) {
+        CharSequence sequence = input.getSequence();
+        return StreamSupport.stream(new RecordsParser.Records<>(parser, boundary, sequence,
+                input.getOffset(), sequence.length()), false);
+    }
+}
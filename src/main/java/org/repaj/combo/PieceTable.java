@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.repaj.combo;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An immutable sequence of characters that can be edited without copying it.
+ * Text is kept as pieces of the original sequence and of inserted sequences,
+ * so an edit creates only new list of pieces and leaves this sequence untouched.
+ *
+ * @author Konrad Kleczkowski
+ * @see IncrementalParse
+ */
+public final class PieceTable implements CharSequence {
+    private static final int MAX_PIECES = 1024;
+
+    private final CharSequence[] sources;
+    private final int[] sourceOffsets;
+    private final int[] positions;
+    private final int length;
+    private int lastPiece;
+
+    private PieceTable(CharSequence[] sources, int[] sourceOffsets, int[] positions, int length) {
+        this.sources = sources;
+        this.sourceOffsets = sourceOffsets;
+        this.positions = positions;
+        this.length = length;
+    }
+
+    /**
+     * Creates piece table of {@code sequence}. The sequence is copied, so it may change afterwards.
+     *
+     * @param sequence a sequence of characters
+     * @return newly created piece table
+     * @throws NullPointerException if {@code sequence} is {@code null}
+     */
+    public static PieceTable of(CharSequence sequence) {
+        String text = sequence.toString();
+        return text.isEmpty()
+                ? new PieceTable(new CharSequence[0], new int[0], new int[0], 0)
+                : new PieceTable(new CharSequence[]{text}, new int[1], new int[1], text.length());
+    }
+
+    /**
+     * Creates piece table where {@code removed} characters starting at {@code offset}
+     * are replaced by {@code inserted}.
+     *
+     * @param offset   an offset where the edit starts
+     * @param removed  number of removed characters
+     * @param inserted inserted characters
+     * @return newly created piece table
+     * @throws IndexOutOfBoundsException if {@code offset} or {@code removed} is negative,
+     *                                   or removed characters are out of this sequence
+     * @throws NullPointerException      if {@code inserted} is {@code null}
+     */
+    public PieceTable edit(int offset, int removed, CharSequence inserted) {
+        if (offset < 0 || removed < 0 || offset > length - removed) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", removed " + removed + ", length " + length);
+        }
+        String text = Objects.requireNonNull(inserted).toString();
+        int end = offset + removed;
+        int capacity = sources.length + 3;
+        CharSequence[] newSources = new CharSequence[capacity];
+        int[] newOffsets = new int[capacity];
+        int[] newPositions = new int[capacity];
+        int count = 0;
+        int position = 0;
+        for (int i = 0; i < sources.length; i++) {
+            int start = positions[i];
+            int stop = pieceEnd(i);
+            if (start < offset) {
+                // part of piece before the edit
+                newSources[count] = sources[i];
+                newOffsets[count] = sourceOffsets[i];
+                newPositions[count] = position;
+                position += Math.min(stop, offset) - start;
+                count++;
+            }
+            if (stop > offset && start <= offset && !text.isEmpty()) {
+                count = insert(newSources, newOffsets, newPositions, count, position, text);
+                position += text.length();
+            }
+            if (stop > end) {
+                // part of piece after the edit
+                int from = Math.max(start, end);
+                newSources[count] = sources[i];
+                newOffsets[count] = sourceOffsets[i] + from - start;
+                newPositions[count] = position;
+                position += stop - from;
+                count++;
+            }
+        }
+        if (offset == length && !text.isEmpty()) {
+            count = insert(newSources, newOffsets, newPositions, count, position, text);
+            position += text.length();
+        }
+        PieceTable table = new PieceTable(Arrays.copyOf(newSources, count), Arrays.copyOf(newOffsets, count),
+                Arrays.copyOf(newPositions, count), position);
+        return count > MAX_PIECES ? of(table) : table;
+    }
+
+    private static int insert(CharSequence[] sources, int[] offsets, int[] positions, int count,
+                              int position, String text) {
+        sources[count] = text;
+        offsets[count] = 0;
+        positions[count] = position;
+        return count + 1;
+    }
+
+    private int pieceEnd(int piece) {
+        return piece + 1 < positions.length ? positions[piece + 1] : length;
+    }
+
+    private int pieceOf(int index) {
+        // sequential reads hit the same piece most of the time
+        int piece = lastPiece;
+        if (piece < positions.length && positions[piece] <= index && index < pieceEnd(piece)) {
+            return piece;
+        }
+        piece = Arrays.binarySearch(positions, index);
+        if (piece < 0) {
+            piece = -piece - 2;
+        }
+        lastPiece = piece;
+        return piece;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        int piece = pieceOf(index);
+        return sources[piece].charAt(sourceOffsets[piece] + index - positions[piece]);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+        StringBuilder builder = new StringBuilder(end - start);
+        for (int piece = start == end ? positions.length : pieceOf(start); piece < positions.length; piece++) {
+            int from = Math.max(start, positions[piece]);
+            int to = Math.min(end, pieceEnd(piece));
+            if (from >= to) {
+                break;
+            }
+            int base = sourceOffsets[piece] - positions[piece];
+            builder.append(sources[piece], base + from, base + to);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length).toString();
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Primitive specializations of parser backed by combinators. Results of primitive kinds
+ * are passed through {@link Trampoline} as any other results, so a combinator of
+ * {@link IntParser}, {@link LongParser} or {@link DoubleParser} is a {@link Parser}
+ * whose declared output type is not the real one; it is wrapped, so it is never
+ * seen as a {@code Parser} outside of this package.
+ * <p>
+ * Combinators of all primitive kinds are built by one {@link Kind}, so specializations
+ * differ only in functions applied to their results.
+ *
+ * @author Konrad Kleczkowski
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+final class PrimitiveParsers {
+    /**
+     * A kind of {@link IntParser}.
+     */
+    static final Kind<IntParser, IntParser.Result, int[]> INT =
+            new Kind<>(OfInt::new, IntParser::parse, PrimitiveRepeatParser.IntBuffer::new);
+
+    /**
+     * A kind of {@link LongParser}.
+     */
+    static final Kind<LongParser, LongParser.Result, long[]> LONG =
+            new Kind<>(OfLong::new, LongParser::parse, PrimitiveRepeatParser.LongBuffer::new);
+
+    /**
+     * A kind of {@link DoubleParser}.
+     */
+    static final Kind<DoubleParser, DoubleParser.Result, double[]> DOUBLE =
+            new Kind<>(OfDouble::new, DoubleParser::parse, PrimitiveRepeatParser.DoubleBuffer::new);
+
+    private PrimitiveParsers() {
+    }
+
+    /**
+     * A primitive kind of parser, that builds its combinators.
+     *
+     * @param <P> type of parser, e.g. {@link IntParser}
+     * @param <R> type of parse result, e.g. {@link IntParser.Result}
+     * @param <A> type of array of outputs, e.g. {@code int[]}
+     */
+    static final class Kind<P, R, A> {
+        private final Function<Parser, P> shell;
+        private final BiFunction<P, Object, Try> parse;
+        private final Supplier<? extends PrimitiveRepeatParser.Buffer<A>> bufferSupplier;
+
+        private Kind(Function<Parser, P> shell, BiFunction<P, Object, Try> parse,
+                     Supplier<? extends PrimitiveRepeatParser.Buffer<A>> bufferSupplier) {
+            this.shell = shell;
+            this.parse = parse;
+            this.bufferSupplier = bufferSupplier;
+        }
+
+        /**
+         * Views {@code parser} as a parser run by {@link Trampoline}.
+         *
+         * @param parser a parser
+         * @param <I>    type of input
+         * @return the combinator backing {@code parser}, or a parser that calls it
+         */
+        <I> Parser<Object, I> node(P parser) {
+            return parser instanceof Of ? ((Of<I>) parser).node : input -> parse.apply(parser, input);
+        }
+
+        /**
+         * Creates parser that converts successful results of {@code parser} into results of this kind.
+         *
+         * @param parser     a parser
+         * @param conversion a function that converts a result into a {@code Try}
+         * @param <Q>        type of parser
+         * @return described parser
+         */
+        <Q extends P> Q map(Q parser, Function<? super R, ? extends Try<?>> conversion) {
+            return (Q) shell.apply(new ConvertParser<R, Object, Object>(node(parser),
+                    success -> conversion.apply(success.getUnchecked())));
+        }
+
+        /**
+         * Creates parser that converts successful results of {@code parser} into object results.
+         *
+         * @param parser     a parser
+         * @param conversion a function that converts a result into a {@code Try}
+         * @param <O>        type of output
+         * @param <I>        type of input
+         * @return described parser
+         */
+        <O, I> Parser<O, I> mapToObj(P parser, Function<? super R, ? extends Try<?>> conversion) {
+            return new ConvertParser<R, O, I>(node(parser), success -> conversion.apply(success.getUnchecked()));
+        }
+
+        /**
+         * Creates parser that fails if a result of {@code parser} does not satisfy {@code predicate}.
+         *
+         * @param parser    a parser
+         * @param predicate a predicate of results
+         * @param <Q>       type of parser
+         * @return described parser
+         */
+        <Q extends P> Q filter(Q parser, Predicate<? super R> predicate) {
+            return (Q) shell.apply(new ConvertParser<R, Object, Object>(node(parser),
+                    success -> predicate.test(success.getUnchecked())
+                            ? success
+                            : Try.failLazily(NoSuchElementException::new)));
+        }
+
+        /**
+         * Creates parser that falls into supplied parser if {@code parser} fails.
+         *
+         * @param parser         a parser
+         * @param parserSupplier a supplier of parser
+         * @param <Q>            type of parser
+         * @return described parser
+         */
+        <Q extends P> Q orElse(Q parser, Supplier<? extends P> parserSupplier) {
+            return (Q) shell.apply(new OrElseParser<Object, Object>(node(parser), () -> node(parserSupplier.get())));
+        }
+
+        /**
+         * Creates parser that repeats {@code parser} and gathers outputs into an array.
+         *
+         * @param parser a parser
+         * @param min    a minimal number of occurrences
+         * @param <I>    type of input
+         * @return described parser
+         */
+        <I> Parser<A, I> repeat(P parser, int min) {
+            return new PrimitiveRepeatParser<>(node(parser), min, bufferSupplier);
+        }
+    }
+
+    /**
+     * A primitive specialization of parser backed by a combinator that completes
+     * with results of its kind.
+     */
+    abstract static class Of<I> {
+        final Parser<Object, I> node;
+
+        Of(Parser<Object, I> node) {
+            this.node = node;
+        }
+    }
+
+    /**
+     * An {@link IntParser} backed by a combinator.
+     */
+    static final class OfInt<I> extends Of<I> implements IntParser<I> {
+        OfInt(Parser<Object, I> node) {
+            super(node);
+        }
+
+        @Override
+        public Try<Result<I>> parse(I input) {
+            return (Try) node.parse(input);
+        }
+    }
+
+    /**
+     * A {@link LongParser} backed by a combinator.
+     */
+    static final class OfLong<I> extends Of<I> implements LongParser<I> {
+        OfLong(Parser<Object, I> node) {
+            super(node);
+        }
+
+        @Override
+        public Try<Result<I>> parse(I input) {
+            return (Try) node.parse(input);
+        }
+    }
+
+    /**
+     * A {@link DoubleParser} backed by a combinator.
+     */
+    static final class OfDouble<I> extends Of<I> implements DoubleParser<I> {
+        OfDouble(Parser<Object, I> node) {
+            super(node);
+        }
+
+        @Override
+        public Try<Result<I>> parse(I input) {
+            return (Try) node.parse(input);
+        }
+    }
+}
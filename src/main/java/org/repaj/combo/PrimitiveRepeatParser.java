@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * A parser that repeats a primitive specialization of parser and gathers outputs
+ * into an array without boxing. Outputs are appended to a growable {@link Buffer}
+ * of the primitive kind, so one loop serves {@code int}, {@code long} and {@code double} outputs.
+ *
+ * @author Konrad Kleczkowski
+ * @see RepetitionParsers#zeroOrMoreInts(IntParser)
+ * @see RepetitionParsers#zeroOrMoreLongs(LongParser)
+ * @see RepetitionParsers#zeroOrMoreDoubles(DoubleParser)
+ */
+final class PrimitiveRepeatParser<A, I> extends Combinator<A, I> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    final Parser<Object, I> parser;
+    private final int min;
+    private final Supplier<? extends Buffer<A>> bufferSupplier;
+
+    /**
+     * Creates parser.
+     *
+     * @param parser         a parser {@linkplain PrimitiveParsers.Kind#node(Object) viewed} as combinator
+     * @param min            a minimal number of occurrences
+     * @param bufferSupplier a supplier of empty buffers
+     */
+    PrimitiveRepeatParser(Parser<Object, I> parser, int min, Supplier<? extends Buffer<A>> bufferSupplier) {
+        this.parser = parser;
+        this.min = min;
+        this.bufferSupplier = bufferSupplier;
+    }
+
+    @Override
+    void enter(Trampoline trampoline, I input) {
+        new Repetition(input).proceed(trampoline);
+    }
+
+    private final class Repetition extends Trampoline.Backtrack {
+        private final Buffer<A> buffer = bufferSupplier.get();
+        private I input;
+
+        Repetition(I input) {
+            this.input = input;
+        }
+
+        void proceed(Trampoline trampoline) {
+            trampoline.push(this);
+            trampoline.call(parser, input);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void resume(Trampoline trampoline, Try<? extends Result<?, ?>> result) {
+            if (result.isSuccess()) {
+                Object next = result.getUnchecked();
+                boolean advanced = Trampoline.advanced(input, buffer.inputOf(next));
+                input = (I) buffer.append(next);
+                // an occurrence that consumes nothing would repeat forever, so it is the last one
+                if (advanced || buffer.count < min) {
+                    reopen();
+                    proceed(trampoline);
+                } else {
+                    trampoline.complete(Results.success(buffer.toArray(), input));
+                }
+                return;
+            }
+            // an occurrence that failed after a cut fails the whole repetition
+            if (buffer.count >= min && (result.isSuccess() || !isCommitted())) {
+                trampoline.complete(Results.success(buffer.toArray(), input));
+            } else {
+                trampoline.complete(result);
+            }
+        }
+    }
+
+    /**
+     * A growable array of outputs of one primitive kind.
+     *
+     * @param <A> type of array
+     */
+    abstract static class Buffer<A> {
+        int count;
+
+        /**
+         * Gets input of parse result of the primitive kind.
+         *
+         * @param result a parse result
+         * @return an input
+         */
+        abstract Object inputOf(Object result);
+
+        /**
+         * Appends output of parse result of the primitive kind.
+         *
+         * @param result a parse result
+         * @return an input of the result
+         */
+        abstract Object append(Object result);
+
+        /**
+         * Copies appended outputs into an array.
+         *
+         * @return an array of outputs
+         */
+        abstract A toArray();
+    }
+
+    /**
+     * A buffer of {@code int} outputs.
+     */
+    static final class IntBuffer extends Buffer<int[]> {
+        private int[] outputs = new int[INITIAL_CAPACITY];
+
+        @Override
+        Object inputOf(Object result) {
+            return ((IntParser.Result<?>) result).input;
+        }
+
+        @Override
+        Object append(Object result) {
+            IntParser.Result<?> iResult = (IntParser.Result<?>) result;
+            if (count == outputs.length) {
+                outputs = Arrays.copyOf(outputs, count * 2);
+            }
+            outputs[count++] = iResult.output;
+            return iResult.input;
+        }
+
+        @Override
+        int[] toArray() {
+            return Arrays.copyOf(outputs, count);
+        }
+    }
+
+    /**
+     * A buffer of {@code long} outputs.
+     */
+    static final class LongBuffer extends Buffer<long[]> {
+        private long[] outputs = new long[INITIAL_CAPACITY];
+
+        @Override
+        Object inputOf(Object result) {
+            return ((LongParser.Result<?>) result).input;
+        }
+
+        @Override
+        Object append(Object result) {
+            LongParser.Result<?> lResult = (LongParser.Result<?>) result;
+            if (count == outputs.length) {
+                outputs = Arrays.copyOf(outputs, count * 2);
+            }
+            outputs[count++] = lResult.output;
+            return lResult.input;
+        }
+
+        @Override
+        long[] toArray() {
+            return Arrays.copyOf(outputs, count);
+        }
+    }
+
+    /**
+     * A buffer of {@code double} outputs.
+     */
+    static final class DoubleBuffer extends Buffer<double[]> {
+        private double[] outputs = new double[INITIAL_CAPACITY];
+
+        @Override
+        Object inputOf(Object result) {
+            return ((DoubleParser.Result<?>) result).input;
+        }
+
+        @Override
+        Object append(Object result) {
+            DoubleParser.Result<?> dResult = (DoubleParser.Result<?>) result;
+            if (count == outputs.length) {
+                outputs = Arrays.copyOf(outputs, count * 2);
+            }
+            outputs[count++] = dResult.output;
+            return dResult.input;
+        }
+
+        @Override
+        double[] toArray() {
+            return Arrays.copyOf(outputs, count);
+        }
+    }
+}
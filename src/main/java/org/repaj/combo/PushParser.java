@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * A parser that is fed with fragments of input as they arrive, instead of reading them.
+ * Parsing goes as far as received input allows; once a parser examines the end of received
+ * input, its result may still change, so parsing is suspended and it
+ * {@linkplain Status#NEED_INPUT needs more input}, and nothing blocks waiting for it.
+ * When more input is fed, parsing resumes by running that parser again, so work
+ * done before it is kept and every fragment costs time proportional to its length,
+ * besides the suspended parser, e.g. a token, that reads its characters again.
+ * Once the result is known, or the end of input is {@linkplain #end() told},
+ * parsing is {@linkplain Status#COMPLETE complete}.
+ * <p>
+ * Parsers that are not built-in should examine the end through {@link CharInput#hasRemaining()},
+ * rather than only test how many characters remain, and should let errors pass,
+ * since parsing is suspended by throwing one.
+ * Bytes are decoded with malformed input replaced, and a character split between two
+ * fragments is decoded once both are received.
+ *
+ * @author Konrad Kleczkowski
+ */
+public final class PushParser<O> {
+    // enough for an incomplete character of any charset
+    private static final int MAX_UNDECODED = 16;
+
+    private final Parser<O, CharInput> parser;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer undecoded = ByteBuffer.allocate(MAX_UNDECODED);
+    private CharBuffer decoded = CharBuffer.allocate(0);
+    private Text text = new Text();
+    private Trampoline trampoline;
+    private Try<Parser.Result<O, CharInput>> result;
+
+    private PushParser(Parser<O, CharInput> parser, CharsetDecoder decoder) {
+        this.parser = parser;
+        this.decoder = decoder;
+        start();
+    }
+
+    /**
+     * Creates push parser of {@code parser} that decodes bytes as UTF-8.
+     *
+     * @param parser a parser
+     * @param <O>    type of output
+     * @return newly created push parser
+     * @throws NullPointerException if {@code parser} is {@code null}
+     */
+    public static <O> PushParser<O> of(Parser<O, CharInput> parser) {
+        return of(parser, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates push parser of {@code parser} that decodes bytes using {@code charset}.
+     *
+     * @param parser  a parser
+     * @param charset a charset of bytes
+     * @param <O>     type of output
+     * @return newly created push parser
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public static <O> PushParser<O> of(Parser<O, CharInput> parser, Charset charset) {
+        return new PushParser<>(Objects.requireNonNull(parser), charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE));
+    }
+
+    /**
+     * Feeds remaining characters of {@code fragment}. Position of {@code fragment} is moved to its limit.
+     * Suspended parsing resumes where it needed more input.
+     *
+     * @param fragment a fragment of input
+     * @return status of parsing
+     * @throws IllegalStateException if the end of input was told
+     */
+    public Status feed(CharBuffer fragment) {
+        checkNotEnded();
+        text.append(fragment);
+        return proceed();
+    }
+
+    /**
+     * Feeds remaining bytes of {@code fragment}. Position of {@code fragment} is moved to its limit.
+     * Suspended parsing resumes where it needed more input.
+     *
+     * @param fragment a fragment of input
+     * @return status of parsing
+     * @throws IllegalStateException if the end of input was told
+     */
+    public Status feed(ByteBuffer fragment) {
+        checkNotEnded();
+        // a character split between fragments is completed byte by byte, so fragment is not copied
+        while (undecoded.position() > 0 && fragment.hasRemaining()) {
+            undecoded.put(fragment.get()).flip();
+            decode(undecoded, false);
+            undecoded.compact();
+        }
+        decode(fragment, false);
+        // an incomplete character is kept until the rest of it is fed
+        undecoded.put(fragment);
+        return proceed();
+    }
+
+    /**
+     * Tells that there is no more input, so parsing completes.
+     *
+     * @return status of parsing, that is always {@link Status#COMPLETE}
+     */
+    public Status end() {
+        if (!text.ended) {
+            undecoded.flip();
+            decode(undecoded, true);
+            undecoded.clear();
+            decoded.clear();
+            decoder.flush(decoded);
+            decoded.flip();
+            text.append(decoded);
+            // result of what has been received is the result of the whole input now
+            text.ended = true;
+            proceed();
+        }
+        return getStatus();
+    }
+
+    /**
+     * Gets status of parsing.
+     *
+     * @return status of parsing
+     */
+    public Status getStatus() {
+        return result == null ? Status.NEED_INPUT : Status.COMPLETE;
+    }
+
+    /**
+     * Gets result of parsing.
+     *
+     * @return a {@code Try} of parse result
+     * @throws IllegalStateException if parsing needs more input
+     */
+    public Try<Parser.Result<O, CharInput>> getResult() {
+        if (result == null) {
+            throw new IllegalStateException("parsing needs more input");
+        }
+        return result;
+    }
+
+    /**
+     * Starts parsing again from characters that are left after successful result,
+     * e.g. to parse the next message of a stream.
+     *
+     * @return status of parsing
+     * @throws IllegalStateException if parsing is not complete or has failed
+     */
+    public Status reset() {
+        CharInput rest = getResult().toOptional()
+                .orElseThrow(() -> new IllegalStateException("parsing has failed"))
+                .getInput();
+        text = text.from(rest.getOffset());
+        start();
+        return getStatus();
+    }
+
+    private void start() {
+        trampoline = Trampoline.suspendable(parser, CharInput.of(text));
+        result = null;
+        proceed();
+    }
+
+    private Status proceed() {
+        if (result == null) {
+            result = trampoline.proceed();
+            if (result != null) {
+                trampoline = null;
+            }
+        }
+        return getStatus();
+    }
+
+    private void decode(ByteBuffer bytes, boolean endOfInput) {
+        int capacity = (int) (bytes.remaining() * (double) decoder.maxCharsPerByte()) + MAX_UNDECODED;
+        if (decoded.capacity() < capacity) {
+            decoded = CharBuffer.allocate(capacity);
+        }
+        decoded.clear();
+        decoder.decode(bytes, decoded, endOfInput);
+        decoded.flip();
+        text.append(decoded);
+    }
+
+    private void checkNotEnded() {
+        if (text.ended) {
+            throw new IllegalStateException("end of input was told");
+        }
+    }
+
+    /**
+     * A status of push parsing.
+     */
+    public enum Status {
+        /**
+         * Result depends on input that has not been fed yet.
+         */
+        NEED_INPUT,
+        /**
+         * Result is known.
+         */
+        COMPLETE
+    }
+
+    /**
+     * Received characters. Characters are appended to a growable array, and
+     * a text of the next parse shares the array with the text of the previous one,
+     * so characters before it are dropped once the array grows.
+     */
+    static final class Text implements CharSequence {
+        private static final int INITIAL_CAPACITY = 64;
+        private static final Suspension SUSPENSION = new Suspension();
+
+        private char[] chars;
+        private int start;
+        private int length;
+        boolean ended;
+
+        Text() {
+            this(new char[INITIAL_CAPACITY], 0, 0, false);
+        }
+
+        private Text(char[] chars, int start, int length, boolean ended) {
+            this.chars = chars;
+            this.start = start;
+            this.length = length;
+            this.ended = ended;
+        }
+
+        /**
+         * Appends remaining characters of {@code fragment}, moving its position to its limit.
+         *
+         * @param fragment a fragment of input
+         */
+        void append(CharBuffer fragment) {
+            int count = fragment.remaining();
+            if (start + length + count > chars.length) {
+                char[] grown = new char[Math.max(2 * (length + count), INITIAL_CAPACITY)];
+                System.arraycopy(chars, start, grown, 0, length);
+                chars = grown;
+                start = 0;
+            }
+            fragment.get(chars, start + length, count);
+            length += count;
+        }
+
+        /**
+         * Creates text of characters from {@code offset} on, that is appended to
+         * instead of this one.
+         *
+         * @param offset an offset
+         * @return a text
+         */
+        Text from(int offset) {
+            return new Text(chars, start + offset, length - offset, ended);
+        }
+
+        /**
+         * Suspends parsing, unless the end of input was told.
+         *
+         * @throws Suspension if more input may be fed
+         */
+        void examineEnd() {
+            if (!ended) {
+                throw SUSPENSION;
+            }
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(String.valueOf(index));
+            }
+            return chars[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || start > end || end > length) {
+                throw new IndexOutOfBoundsException();
+            }
+            return new String(chars, this.start + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, start, length);
+        }
+    }
+
+    /**
+     * Thrown when a parser examines the end of received input, so it is run again
+     * once more input is fed. It is an error, so it passes through parsers that
+     * turn exceptions into failures.
+     */
+    @SuppressWarnings("serial") // it is never serialized
+    static final class Suspension extends Error {
+        Suspension() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.repaj.combo;
+
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A publisher of outputs of records parsed one after another from the same input. Records are
+ * parsed only when subscriber demands them, so parsing never runs ahead of subscriber and
+ * outputs are never buffered. Publishing completes when a record fails at the end of input.
+ * A record that fails before the end means that input is truncated or corrupt, so the failure
+ * is signalled as an error: the {@linkplain CharInput#getFurthestFailure() furthest failure}
+ * of a {@link CharInput}, or the failure of the record for other inputs. Other inputs
+ * tell the end by failing with {@link NoSuchElementException} that is not
+ * an {@link InputMismatchException}, as {@link org.repaj.combo.lexer.StreamTokenizer} does.
+ * An exception thrown by parsing is signalled as an error as well.
+ * <p>
+ * Subscriber and subscription follow the contract of {@code java.util.concurrent.Flow}.
+ * Input is parsed once, so publisher accepts a single subscriber. As input may be mutable,
+ * e.g. a {@link org.repaj.combo.lexer.StreamTokenizer}, records are not checked to consume
+ * input; a record that consumes nothing is published as long as there is demand.
+ *
+ * @author Konrad Kleczkowski
+ * @see RepetitionParsers#publisher(Parser, Object, Executor)
+ */
+public final class RecordPublisher<O, I> {
+    private static final Subscription EMPTY = new Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private final Parser<O, I> parser;
+    private final Executor executor;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    private I input;
+
+    RecordPublisher(Parser<O, I> parser, I input, Executor executor) {
+        this.parser = Objects.requireNonNull(parser);
+        this.input = Objects.requireNonNull(input);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * Gets a parser of one record.
+     *
+     * @return a parser
+     */
+    public Parser<O, I> getParser() {
+        return parser;
+    }
+
+    /**
+     * Subscribes {@code subscriber}. If publisher already has a subscriber,
+     * {@code subscriber} is signalled an {@link IllegalStateException}.
+     *
+     * @param subscriber a subscriber
+     * @throws NullPointerException if {@code subscriber} is {@code null}
+     */
+    public void subscribe(Subscriber<? super O> subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(EMPTY);
+            subscriber.onError(new IllegalStateException());
+            return;
+        }
+        subscriber.onSubscribe(new Emission(subscriber));
+    }
+
+    /**
+     * A receiver of outputs, as {@code java.util.concurrent.Flow.Subscriber}.
+     *
+     * @param <T> type of items
+     */
+    public interface Subscriber<T> {
+        /**
+         * Invoked before any other method with subscription that controls demand.
+         *
+         * @param subscription a subscription
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Invoked with next item.
+         *
+         * @param item an item
+         */
+        void onNext(T item);
+
+        /**
+         * Invoked when publishing fails. No other method is invoked afterwards.
+         *
+         * @param throwable a cause
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Invoked when there are no more items. No other method is invoked afterwards.
+         */
+        void onComplete();
+    }
+
+    /**
+     * A link between publisher and subscriber, as {@code java.util.concurrent.Flow.Subscription}.
+     */
+    public interface Subscription {
+        /**
+         * Adds {@code n} items to demand of subscriber. Demand of {@link Long#MAX_VALUE}
+         * items is unbounded. Non-positive {@code n} is signalled as {@link IllegalArgumentException}.
+         *
+         * @param n number of items
+         */
+        void request(long n);
+
+        /**
+         * Stops publishing. Record that is being parsed is abandoned.
+         */
+        void cancel();
+    }
+
+    private final class Emission implements Subscription, Runnable {
+        private final Subscriber<? super O> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger missed = new AtomicInteger();
+        private final Cancellation cancellation = new Cancellation();
+        private volatile Throwable illegalRequest;
+        private boolean done;
+
+        Emission(Subscriber<? super O> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                illegalRequest = new IllegalArgumentException();
+            } else {
+                demand.accumulateAndGet(n, (d, m) -> d + m < 0 ? Long.MAX_VALUE : d + m);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancellation.cancel();
+            schedule();
+        }
+
+        private void schedule() {
+            // only one thread emits at a time, the other ones leave it work to do
+            if (missed.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int work = 1;
+            do {
+                while (!done && !cancellation.isCancelled() && demand.get() > 0 && illegalRequest == null) {
+                    emit();
+                }
+                if (!done && !cancellation.isCancelled() && illegalRequest != null) {
+                    done = true;
+                    subscriber.onError(illegalRequest);
+                }
+                work = missed.addAndGet(-work);
+            } while (work != 0);
+        }
+
+        private void emit() {
+            Try<Parser.Result<O, I>> result;
+            Cancellation outer = cancellation.enter();
+            try {
+                result = parser.parse(input);
+            } catch (CancellationException e) {
+                return;
+            } catch (RuntimeException e) {
+                done = true;
+                subscriber.onError(e);
+                return;
+            } finally {
+                Cancellation.restore(outer);
+            }
+            if (!result.isSuccess()) {
+                done = true;
+                Throwable error = errorOf(result);
+                if (error == null) {
+                    subscriber.onComplete();
+                } else {
+                    subscriber.onError(error);
+                }
+                return;
+            }
+            Parser.Result<O, I> success = result.getUnchecked();
+            input = success.input;
+            if (demand.get() != Long.MAX_VALUE) {
+                demand.decrementAndGet();
+            }
+            subscriber.onNext(success.output);
+        }
+
+        /**
+         * Gets error of a record that failed before the end of input.
+         *
+         * @param failure a failed {@code Try} of the record
+         * @return an error, or {@code null} if the record failed at the end of input
+         */
+        private Throwable errorOf(Try<?> failure) {
+            if (input instanceof CharInput) {
+                CharInput charInput = (CharInput) input;
+                if (charInput.remaining() == 0) {
+                    return null;
+                }
+                Optional<FailureReport> report = charInput.getFurthestFailure();
+                if (report.isPresent()) {
+                    return report.get().toException();
+                }
+            }
+            Throwable[] cause = new Throwable[1];
+            failure.onFailure(throwable -> cause[0] = throwable);
+            boolean end = !(input instanceof CharInput)
+                    && cause[0] instanceof NoSuchElementException
+                    && !(cause[0] instanceof InputMismatchException);
+            return end ? null : cause[0];
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.repaj.combo;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator of outputs of records parsed one after another from the same input.
+ * Each record is parsed when it is advanced to, so outputs are never gathered.
+ * It ends at the first record that fails to parse.
+ *
+ * @author Konrad Kleczkowski
+ * @see Parsers#stream(Parser, Object)
+ */
+final class RecordSpliterator<O, I> implements Spliterator<O> {
+    private final Parser<O, I> parser;
+    private I input;
+    private boolean done;
+
+    RecordSpliterator(Parser<O, I> parser, I input) {
+        this.parser = Objects.requireNonNull(parser);
+        this.input = Objects.requireNonNull(input);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super O> action) {
+        Objects.requireNonNull(action);
+        if (done) {
+            return false;
+        }
+        Try<Parser.Result<O, I>> result = parser.parse(input);
+        if (!result.isSuccess()) {
+            done = true;
+            return false;
+        }
+        Parser.Result<O, I> success = result.getUnchecked();
+        input = success.input;
+        action.accept(success.output);
+        return true;
+    }
+
+    @Override
+    public Spliterator<O> trySplit() {
+        // where the next record starts is known only when the previous one is parsed
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED;
+    }
+}
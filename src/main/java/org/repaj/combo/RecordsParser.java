@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.repaj.combo;
+
+import java.util.ArrayList;
+import java.util.InputMismatchException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * A parser of records separated by boundary characters, that parses records in parallel.
+ * Remaining input is split into chunks at boundaries, chunks are parsed on a {@link ForkJoinPool},
+ * each with its own input, and outputs are merged in order of records.
+ * <p>
+ * Each record is the text between two boundaries, not including them, and must be parsed
+ * as a whole. Text after the last boundary is a record unless it is empty.
+ * Parsing fails with failure of the first record that fails.
+ *
+ * @author Konrad Kleczkowski
+ * @see RepetitionParsers#parallelRecords(Parser, CharPredicate)
+ */
+public final class RecordsParser<O> implements Parser<Stream<O>, CharInput> {
+    private static final Expectation END_OF_RECORD = new Expectation("end of record");
+    private static final int CHUNK_LENGTH = 1 << 16;
+
+    private final Parser<O, CharInput> parser;
+    private final CharPredicate boundary;
+    private final ForkJoinPool pool;
+
+    RecordsParser(Parser<O, CharInput> parser, CharPredicate boundary, ForkJoinPool pool) {
+        this.parser = Objects.requireNonNull(parser);
+        this.boundary = Objects.requireNonNull(boundary);
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    /**
+     * Gets a parser of one record.
+     *
+     * @return a parser of one record
+     */
+    public Parser<O, CharInput> getParser() {
+        return parser;
+    }
+
+    /**
+     * Gets a predicate of boundary characters.
+     *
+     * @return a predicate of boundary characters
+     */
+    public CharPredicate getBoundary() {
+        return boundary;
+    }
+
+    @Override
+    public Try<Result<Stream<O>, CharInput>> parse(CharInput input) {
+        CharSequence sequence = input.getSequence();
+        int end = sequence.length();
+        Chunk<O> chunk = pool.invoke(new Split(sequence, input.getOffset(), end, new AtomicInteger(end)));
+        if (chunk.failure != null) {
+            input.recordFailures(chunk.failedInput);
+            return Results.failure(chunk.failure);
+        }
+        return Results.success(chunk.outputs.stream().flatMap(List::stream), input.advance(end - input.getOffset()));
+    }
+
+    private static int boundaryAfter(CharPredicate boundary, CharSequence sequence, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (boundary.test(sequence.charAt(i))) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static <O> Try<Result<O, CharInput>> parseRecord(Parser<O, CharInput> parser,
+                                                             CharInput input, int recordEnd) {
+        Try<Result<O, CharInput>> result = parser.parse(input);
+        if (result.isSuccess() && result.getUnchecked().input.getOffset() != recordEnd) {
+            return CharParsers.mismatch(END_OF_RECORD, result.getUnchecked().input);
+        }
+        return result;
+    }
+
+    /**
+     * A task that parses records between two boundaries.
+     */
+    @SuppressWarnings("serial") // tasks are never serialized
+    private final class Split extends RecursiveTask<Chunk<O>> {
+        private final CharSequence sequence;
+        private final int start;
+        private final int end;
+        private final AtomicInteger firstFailure;
+
+        Split(CharSequence sequence, int start, int end, AtomicInteger firstFailure) {
+            this.sequence = sequence;
+            this.start = start;
+            this.end = end;
+            this.firstFailure = firstFailure;
+        }
+
+        @Override
+        protected Chunk<O> compute() {
+            if (end - start > CHUNK_LENGTH) {
+                int middle = boundaryAfter(boundary, sequence, start + (end - start) / 2, end) + 1;
+                if (middle < end) {
+                    Split left = new Split(sequence, start, middle, firstFailure);
+                    left.fork();
+                    Chunk<O> right = new Split(sequence, middle, end, firstFailure).compute();
+                    return left.join().merge(right);
+                }
+            }
+            return parseRecords();
+        }
+
+        private Chunk<O> parseRecords() {
+            // every chunk has input of its own, so failures of chunks are tracked separately
+            CharInput base = CharInput.of(sequence);
+            List<O> outputs = new ArrayList<>();
+            int offset = start;
+            while (offset < end && offset < firstFailure.get()) {
+                int recordEnd = boundaryAfter(boundary, sequence, offset, end);
+                CharInput input = base.advance(offset);
+                Try<Result<O, CharInput>> result = parseRecord(parser, input, recordEnd);
+                if (!result.isSuccess()) {
+                    firstFailure.accumulateAndGet(offset, Math::min);
+                    return new Chunk<>(input, result);
+                }
+                outputs.add(result.getUnchecked().output);
+                offset = recordEnd + 1;
+            }
+            return new Chunk<>(outputs);
+        }
+    }
+
+    /**
+     * A spliterator of outputs of records between two boundaries. Each record is parsed when
+     * it is advanced to, and splitting halves remaining text at a boundary, as parsing does.
+     * A record that fails to parse is thrown as {@link InputMismatchException}.
+     */
+    static final class Records<O> implements Spliterator<O> {
+        private final Parser<O, CharInput> parser;
+        private final CharPredicate boundary;
+        private final CharInput base;
+        private final int end;
+        private int offset;
+
+        Records(Parser<O, CharInput> parser, CharPredicate boundary, CharSequence sequence, int offset, int end) {
+            this.parser = Objects.requireNonNull(parser);
+            this.boundary = Objects.requireNonNull(boundary);
+            this.base = CharInput.of(sequence);
+            this.offset = offset;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super O> action) {
+            Objects.requireNonNull(action);
+            if (offset >= end) {
+                return false;
+            }
+            int recordEnd = boundaryAfter(boundary, base.getSequence(), offset, end);
+            CharInput input = base.advance(offset);
+            Try<Result<O, CharInput>> result = parseRecord(parser, input, recordEnd);
+            if (!result.isSuccess()) {
+                offset = end;
+                throw input.getFurthestFailure()
+                        .map(FailureReport::toException)
+                        .orElseGet(InputMismatchException::new);
+            }
+            offset = recordEnd + 1;
+            action.accept(result.getUnchecked().output);
+            return true;
+        }
+
+        @Override
+        public Spliterator<O> trySplit() {
+            if (end - offset <= CHUNK_LENGTH) {
+                return null;
+            }
+            CharSequence sequence = base.getSequence();
+            int middle = boundaryAfter(boundary, sequence, offset + (end - offset) / 2, end) + 1;
+            if (middle >= end) {
+                return null;
+            }
+            Records<O> prefix = new Records<>(parser, boundary, sequence, offset, middle);
+            offset = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            // there are at most as many records as characters, plus one
+            return end - offset + 1;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED;
+        }
+    }
+
+    /**
+     * Outputs of records of a chunk, kept as list of lists, so merging chunks does not copy outputs.
+     */
+    private static final class Chunk<O> {
+        final List<List<O>> outputs;
+        final CharInput failedInput;
+        final Try<Result<O, CharInput>> failure;
+
+        Chunk(List<O> outputs) {
+            this.outputs = new ArrayList<>();
+            this.outputs.add(outputs);
+            this.failedInput = null;
+            this.failure = null;
+        }
+
+        Chunk(CharInput failedInput, Try<Result<O, CharInput>> failure) {
+            this.outputs = null;
+            this.failedInput = failedInput;
+            this.failure = failure;
+        }
+
+        Chunk<O> merge(Chunk<O> right) {
+            if (failure != null) {
+                return this;
+            } else if (right.failure != null) {
+                return right;
+            }
+            outputs.addAll(right.outputs);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A parser that handles match of a pattern at the beginning of input.
+ *
+ * @author Konrad Kleczkowski
+ * @see CharParsers#regex(Pattern)
+ */
+public final class RegexParser extends CharParser<String> {
+    final Pattern pattern;
+    private final Expectation expected;
+
+    RegexParser(Pattern pattern) {
+        super(null);
+        this.pattern = pattern;
+        this.expected = new Expectation("/" + pattern + "/");
+    }
+
+    /**
+     * Gets a pattern.
+     *
+     * @return a pattern
+     */
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    @Override
+    public Try<Result<String, CharInput>> parse(CharInput input) {
+        CharSequence sequence = input.getSequence();
+        Matcher matcher = pattern.matcher(sequence)
+                .region(input.getOffset(), sequence.length())
+                .useTransparentBounds(true)
+                .useAnchoringBounds(false);
+        boolean found = matcher.lookingAt();
+        if (matcher.hitEnd()) {
+            // engine may check end of input without reading any character
+            input.examineEnd();
+        }
+        if (found) {
+            return Results.success(matcher.group(), input.advance(matcher.end() - input.getOffset()));
+        }
+        return CharParsers.mismatch(expected, input);
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * A parser that repeats a parser, optionally separated by a separator,
+ * folding outputs into one accumulation of a {@link Collector}. Repetition is greedy
+ * and runs in a loop, so neither time nor depth of stack depends on number of occurrences
+ * except of accumulating outputs.
+ * <p>
+ * Unbounded repetition ends after an occurrence that consumes nothing, which is kept.
+ * Whether it consumed anything is known only for {@link Comparable} inputs, such as
+ * {@link CharInput}, and for inputs that are replaced by equal ones; mutable inputs,
+ * such as {@link org.repaj.combo.lexer.StreamTokenizer}, are assumed to be consumed.
+ *
+ * @author Konrad Kleczkowski
+ * @see RepetitionParsers
+ */
+public final class RepeatParser<O, A, R, I> extends Combinator<R, I> {
+    /**
+     * An upper boundary that means no boundary.
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    final Parser<O, I> first;
+    private final Parser<?, I> separator;
+    private final Parser<O, I> next;
+    final int min;
+    private final int max;
+
+    private final Supplier<A> supplier;
+    private final BiConsumer<A, ? super O> accumulator;
+    private final Function<A, R> finisher;
+    private final Collector<? super O, A, R> collector;
+
+    RepeatParser(Parser<O, I> parser, Parser<?, I> separator, int min, int max,
+                 Collector<? super O, A, R> collector) {
+        this.first = Objects.requireNonNull(parser);
+        this.separator = separator;
+        this.next = separator == null ? parser : separator.flatMap(o -> parser);
+        this.min = min;
+        this.max = max;
+        this.supplier = collector.supplier();
+        this.accumulator = collector.accumulator();
+        this.finisher = collector.finisher();
+        this.collector = collector;
+    }
+
+    /**
+     * Gets a parser that is repeated.
+     *
+     * @return a parser that is repeated
+     */
+    public Parser<O, I> getParser() {
+        return first;
+    }
+
+    /**
+     * Gets a separator parser.
+     *
+     * @return an {@code Optional} describing separator parser, or empty {@code Optional}
+     * if occurrences are not separated
+     */
+    public Optional<Parser<?, I>> getSeparator() {
+        return Optional.ofNullable(separator);
+    }
+
+    /**
+     * Gets minimal number of occurrences.
+     *
+     * @return minimal number of occurrences
+     */
+    public int getMin() {
+        return min;
+    }
+
+    /**
+     * Gets maximal number of occurrences.
+     *
+     * @return maximal number of occurrences, or {@link #UNBOUNDED}
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * Gets a collector of outputs.
+     *
+     * @return a collector of outputs
+     */
+    public Collector<? super O, A, R> getCollector() {
+        return collector;
+    }
+
+    /**
+     * Returns a {@code Collector} that accumulates elements into a {@code Stream}.
+     *
+     * @param <O> type of elements
+     * @return a {@code Collector} that accumulates elements into a {@code Stream}
+     */
+    static <O> Collector<O, ?, Stream<O>> toStream() {
+        return Collector.<O, Stream.Builder<O>, Stream<O>>of(
+                Stream::builder,
+                Stream.Builder::add,
+                (left, right) -> {
+                    right.build().forEach(left);
+                    return left;
+                },
+                Stream.Builder::build);
+    }
+
+    @Override
+    void enter(Trampoline trampoline, I input) {
+        new Repetition(input).proceed(trampoline);
+    }
+
+    private final class Repetition extends Trampoline.Backtrack {
+        private final A accumulation = supplier.get();
+        private I input;
+        private int count;
+
+        Repetition(I input) {
+            this.input = input;
+        }
+
+        void proceed(Trampoline trampoline) {
+            if (count < max) {
+                trampoline.push(this);
+                trampoline.call(count == 0 ? first : next, input);
+            } else {
+                trampoline.complete(Results.success(finisher.apply(accumulation), input));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void resume(Trampoline trampoline, Try<? extends Result<?, ?>> result) {
+            if (result.isSuccess()) {
+                Result<O, I> oiResult = (Result<O, I>) result.getUnchecked();
+                boolean advanced = Trampoline.advanced(input, oiResult.input);
+                accumulator.accept(accumulation, oiResult.output);
+                input = oiResult.input;
+                count++;
+                // an occurrence that consumes nothing would repeat forever, so it is the last one
+                if (advanced || count < min || max != UNBOUNDED) {
+                    reopen();
+                    proceed(trampoline);
+                } else {
+                    trampoline.complete(Results.success(finisher.apply(accumulation), input));
+                }
+                return;
+            }
+            // an occurrence that failed after a cut fails the whole repetition
+            if (count >= min && (result.isSuccess() || !isCommitted())) {
+                trampoline.complete(Results.success(finisher.apply(accumulation), input));
+            } else {
+                trampoline.complete(result);
+            }
+        }
+    }
+}
@@ -23,10 +23,19 @@
 package org.repaj.combo;
 
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collector;
 import java.util.stream.Stream;
 
 /**
  * A set of parsers that handle repetition patterns.
+ * <p>
+ * Repetitions are greedy and parse occurrences in a loop, folding outputs into one accumulation,
+ * so they take time linear in number of occurrences and constant depth of stack. Outputs are
+ * either gathered into a {@code Stream} or folded by given {@link Collector}, e.g. to sum
+ * numbers without storing them.
+ * Unbounded repetition stops at the first occurrence that does not consume any input.
  *
  * @author Konrad Kleczkowski
  */
@@ -52,7 +61,23 @@ public class RepetitionParsers {
      * @return described parser
      */
     public static <O, I> Parser<Stream<O>, I> zeroOrMore(Parser<O, I> parser) {
-        return oneOrMore(parser).orElse(() -> Parser.succeed(Stream.empty()));
+        return zeroOrMore(parser, RepeatParser.toStream());
+    }
+
+    /**
+     * Creates parser that handles zero or more occurrences of {@code parser} match
+     * and folds outputs using {@code collector}.
+     *
+     * @param parser    a parser
+     * @param collector a collector of outputs
+     * @param <O>       type of output
+     * @param <A>       type of accumulation
+     * @param <R>       type of collected output
+     * @param <I>       type of input
+     * @return described parser
+     */
+    public static <O, A, R, I> Parser<R, I> zeroOrMore(Parser<O, I> parser, Collector<? super O, A, R> collector) {
+        return new RepeatParser<>(parser, null, 0, RepeatParser.UNBOUNDED, collector);
     }
 
     /**
@@ -64,7 +89,23 @@ public class RepetitionParsers {
      * @return described parser
      */
     public static <O, I> Parser<Stream<O>, I> oneOrMore(Parser<O, I> parser) {
-        return parser.map(Stream::of).flatMap(o -> zeroOrMore(parser).map(os -> Stream.concat(o, os)));
+        return oneOrMore(parser, RepeatParser.toStream());
+    }
+
+    /**
+     * Creates parser that handles one or more occurrences of {@code parser} match
+     * and folds outputs using {@code collector}.
+     *
+     * @param parser    a parser
+     * @param collector a collector of outputs
+     * @param <O>       type of output
+     * @param <A>       type of accumulation
+     * @param <R>       type of collected output
+     * @param <I>       type of input
+     * @return described parser
+     */
+    public static <O, A, R, I> Parser<R, I> oneOrMore(Parser<O, I> parser, Collector<? super O, A, R> collector) {
+        return new RepeatParser<>(parser, null, 1, RepeatParser.UNBOUNDED, collector);
     }
 
     /**
@@ -75,15 +116,32 @@ public class RepetitionParsers {
      * @param <O>    type of output
      * @param <I>    type of input
      * @return described parser
+     * @throws IllegalArgumentException if {@code count} is negative
      */
     public static <O, I> Parser<Stream<O>, I> exactly(Parser<O, I> parser, int count) {
-        return Stream
-                .<Parser<Stream<O>, I>>iterate(
-                        Parser.succeed(Stream.empty()),
-                        p -> parser.map(Stream::of).flatMap(o -> p.map(os -> Stream.concat(o, os))))
-                .skip(count)
-                .findFirst()
-                .orElseThrow(IllegalArgumentException::new);
+        return exactly(parser, count, RepeatParser.toStream());
+    }
+
+    /**
+     * Creates parser that handles exactly {@code count} occurrences of {@code parser} match
+     * and folds outputs using {@code collector}.
+     *
+     * @param parser    a parser
+     * @param count     count
+     * @param collector a collector of outputs
+     * @param <O>       type of output
+     * @param <A>       type of accumulation
+     * @param <R>       type of collected output
+     * @param <I>       type of input
+     * @return described parser
+     * @throws IllegalArgumentException if {@code count} is negative
+     */
+    public static <O, A, R, I> Parser<R, I> exactly(Parser<O, I> parser, int count,
+                                                    Collector<? super O, A, R> collector) {
+        if (count < 0) {
+            throw new IllegalArgumentException();
+        }
+        return new RepeatParser<>(parser, null, count, count, collector);
     }
 
     /**
@@ -94,10 +152,32 @@ public class RepetitionParsers {
      * @param <O>    type of output
      * @param <I>    type of input
      * @return described parser
+     * @throws IllegalArgumentException if {@code count} is negative
      */
     public static <O, I> Parser<Stream<O>, I> atLeast(Parser<O, I> parser, int count) {
-        return exactly(parser, count).flatMap(os1 ->
-                zeroOrMore(parser).map(os2 -> Stream.concat(os1, os2)));
+        return atLeast(parser, count, RepeatParser.toStream());
+    }
+
+    /**
+     * Creates parser that handles at least {@code count} occurrences of {@code parser} match
+     * and folds outputs using {@code collector}.
+     *
+     * @param parser    a parser
+     * @param count     count
+     * @param collector a collector of outputs
+     * @param <O>       type of output
+     * @param <A>       type of accumulation
+     * @param <R>       type of collected output
+     * @param <I>       type of input
+     * @return described parser
+     * @throws IllegalArgumentException if {@code count} is negative
+     */
+    public static <O, A, R, I> Parser<R, I> atLeast(Parser<O, I> parser, int count,
+                                                    Collector<? super O, A, R> collector) {
+        if (count < 0) {
+            throw new IllegalArgumentException();
+        }
+        return new RepeatParser<>(parser, null, count, RepeatParser.UNBOUNDED, collector);
     }
 
     /**
@@ -109,16 +189,33 @@ public class RepetitionParsers {
      * @param <O>    type of output
      * @param <I>    type of input
      * @return described parser
+     * @throws IllegalArgumentException if {@code from} is negative or {@code to} is not greater than {@code from}
      */
     public static <O, I> Parser<Stream<O>, I> between(Parser<O, I> parser, int from, int to) {
-        return Stream
-                .<Parser<Stream<O>, I>>iterate(
-                        Parser.succeed(Stream.empty()),
-                        p -> parser.map(Stream::of).flatMap(o -> p.map(os -> Stream.concat(o, os))))
-                .skip(from)
-                .limit(to - from)
-                .reduce((a, b) -> b.orElse(() -> a))
-                .orElseThrow(IllegalArgumentException::new);
+        return between(parser, from, to, RepeatParser.toStream());
+    }
+
+    /**
+     * Creates parser that handles at least {@code from} and at most {@code to} occurrences of {@code parser} match
+     * and folds outputs using {@code collector}.
+     *
+     * @param parser    a parser
+     * @param from      bottom boundary
+     * @param to        upper boundary
+     * @param collector a collector of outputs
+     * @param <O>       type of output
+     * @param <A>       type of accumulation
+     * @param <R>       type of collected output
+     * @param <I>       type of input
+     * @return described parser
+     * @throws IllegalArgumentException if {@code from} is negative or {@code to} is not greater than {@code from}
+     */
+    public static <O, A, R, I> Parser<R, I> between(Parser<O, I> parser, int from, int to,
+                                                    Collector<? super O, A, R> collector) {
+        if (from < 0 || to <= from) {
+            throw new IllegalArgumentException();
+        }
+        return new RepeatParser<>(parser, null, from, to - 1, collector);
     }
 
     /**
@@ -131,7 +228,25 @@ public class RepetitionParsers {
      * @return described parser
      */
     public static <O, I> Parser<Stream<O>, I> separatedByZeroOrMore(Parser<O, I> parser, Parser<?, I> separator) {
-        return separatedByOneOrMore(parser, separator).orElse(() -> Parser.succeed(Stream.empty()));
+        return separatedByZeroOrMore(parser, separator, RepeatParser.toStream());
+    }
+
+    /**
+     * Creates parser that handles zero or more occurrences of {@code parser} match separated by {@code separator}
+     * and folds outputs using {@code collector}.
+     *
+     * @param parser    a parser
+     * @param separator a separator parser
+     * @param collector a collector of outputs
+     * @param <O>       type of output
+     * @param <A>       type of accumulation
+     * @param <R>       type of collected output
+     * @param <I>       type of input
+     * @return described parser
+     */
+    public static <O, A, R, I> Parser<R, I> separatedByZeroOrMore(Parser<O, I> parser, Parser<?, I> separator,
+                                                                  Collector<? super O, A, R> collector) {
+        return new RepeatParser<>(parser, separator, 0, RepeatParser.UNBOUNDED, collector);
     }
 
     /**
@@ -144,8 +259,97 @@ public class RepetitionParsers {
      * @return described parser
      */
     public static <O, I> Parser<Stream<O>, I> separatedByOneOrMore(Parser<O, I> parser, Parser<?, I> separator) {
-        return parser.map(Stream::of).flatMap(o ->
-                zeroOrMore(separator.flatMap(o1 -> parser)).map(os -> Stream.concat(o, os)));
+        return separatedByOneOrMore(parser, separator, RepeatParser.toStream());
+    }
+
+    /**
+     * Creates parser that handles one or more occurrences of {@code parser} match separated by {@code separator}
+     * and folds outputs using {@code collector}.
+     *
+     * @param parser    a parser
+     * @param separator a separator parser
+     * @param collector a collector of outputs
+     * @param <O>       type of output
+     * @param <A>       type of accumulation
+     * @param <R>       type of collected output
+     * @param <I>       type of input
+     * @return described parser
+     */
+    public static <O, A, R, I> Parser<R, I> separatedByOneOrMore(Parser<O, I> parser, Parser<?, I> separator,
+                                                                 Collector<? super O, A, R> collector) {
+        return new RepeatParser<>(parser, separator, 1, RepeatParser.UNBOUNDED, collector);
+    }
+
+    /**
+     * Creates parser that handles zero or more occurrences of {@code parser} match
+     * and gathers outputs into an array without boxing.
+     *
+     * @param parser a parser
+     * @param <I>    type of input
+     * @return described parser
+     */
+    public static <I> Parser<int[], I> zeroOrMoreInts(IntParser<I> parser) {
+        return PrimitiveParsers.INT.repeat(parser, 0);
+    }
+
+    /**
+     * Creates parser that handles one or more occurrences of {@code parser} match
+     * and gathers outputs into an array without boxing.
+     *
+     * @param parser a parser
+     * @param <I>    type of input
+     * @return described parser
+     */
+    public static <I> Parser<int[], I> oneOrMoreInts(IntParser<I> parser) {
+        return PrimitiveParsers.INT.repeat(parser, 1);
+    }
+
+    /**
+     * Creates parser that handles zero or more occurrences of {@code parser} match
+     * and gathers outputs into an array without boxing.
+     *
+     * @param parser a parser
+     * @param <I>    type of input
+     * @return described parser
+     */
+    public static <I> Parser<long[], I> zeroOrMoreLongs(LongParser<I> parser) {
+        return PrimitiveParsers.LONG.repeat(parser, 0);
+    }
+
+    /**
+     * Creates parser that handles one or more occurrences of {@code parser} match
+     * and gathers outputs into an array without boxing.
+     *
+     * @param parser a parser
+     * @param <I>    type of input
+     * @return described parser
+     */
+    public static <I> Parser<long[], I> oneOrMoreLongs(LongParser<I> parser) {
+        return PrimitiveParsers.LONG.repeat(parser, 1);
+    }
+
+    /**
+     * Creates parser that handles zero or more occurrences of {@code parser} match
+     * and gathers outputs into an array without boxing.
+     *
+     * @param parser a parser
+     * @param <I>    type of input
+     * @return described parser
+     */
+    public static <I> Parser<double[], I> zeroOrMoreDoubles(DoubleParser<I> parser) {
+        return PrimitiveParsers.DOUBLE.repeat(parser, 0);
+    }
+
+    /**
+     * Creates parser that handles one or more occurrences of {@code parser} match
+     * and gathers outputs into an array without boxing.
+     *
+     * @param parser a parser
+     * @param <I>    type of input
+     * @return described parser
+     */
+    public static <I> Parser<double[], I> oneOrMoreDoubles(DoubleParser<I> parser) {
+        return PrimitiveParsers.DOUBLE.repeat(parser, 1);
     }
 
     /**
@@ -161,4 +365,75 @@ public class RepetitionParsers {
     public static <O, I> Parser<O, I> surroundedWith(Parser<O, I> parser, Parser<?, I> begin, Parser<?, I> end) {
         return begin.flatMap(i -> parser.flatMap(o -> end.map(i1 -> o)));
     }
+
+    /**
+     * Creates parser that parses all remaining input as records separated by characters
+     * that match {@code boundary}, parsing records in parallel on the common {@link ForkJoinPool}.
+     * Every record is parsed by {@code parser} on input of its own, and must be parsed as a whole.
+     * As {@code parser} is run by many threads at once, it must not be memoized
+     * with a map that is not thread-safe.
+     *
+     * @param parser   a parser of one record
+     * @param boundary a predicate of characters that separate records
+     * @param <O>      type of output
+     * @return described parser
+     * @throws NullPointerException if any argument is {@code null}
+     * @see RecordsParser
+     */
+    public static <O> Parser<Stream<O>, CharInput> parallelRecords(Parser<O, CharInput> parser,
+                                                                   CharPredicate boundary) {
+        return parallelRecords(parser, boundary, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates parser that parses all remaining input as records separated by characters
+     * that match {@code boundary}, parsing records in parallel on {@code pool}.
+     *
+     * @param parser   a parser of one record
+     * @param boundary a predicate of characters that separate records
+     * @param pool     a pool that runs parsing
+     * @param <O>      type of output
+     * @return described parser
+     * @throws NullPointerException if any argument is {@code null}
+     * @see #parallelRecords(Parser, CharPredicate)
+     */
+    public static <O> Parser<Stream<O>, CharInput> parallelRecords(Parser<O, CharInput> parser,
+                                                                   CharPredicate boundary, ForkJoinPool pool) {
+        return new RecordsParser<>(parser, boundary, pool);
+    }
+
+    /**
+     * Creates publisher of outputs of records parsed by {@code parser} one after another
+     * from {@code input}. Records are parsed by thread that requests them, as far as
+     * subscriber demands.
+     *
+     * @param parser a parser of one record
+     * @param input  an input, e.g. a {@link org.repaj.combo.lexer.StreamTokenizer}
+     * @param <O>    type of output
+     * @param <I>    type of input
+     * @return described publisher
+     * @throws NullPointerException if any argument is {@code null}
+     * @see RecordPublisher
+     */
+    public static <O, I> RecordPublisher<O, I> publisher(Parser<O, I> parser, I input) {
+        return publisher(parser, input, Runnable::run);
+    }
+
+    /**
+     * Creates publisher of outputs of records parsed by {@code parser} one after another
+     * from {@code input}. Records are parsed by tasks run by {@code executor},
+     * as far as subscriber demands.
+     *
+     * @param parser   a parser of one record
+     * @param input    an input
+     * @param executor an executor that runs parsing
+     * @param <O>      type of output
+     * @param <I>      type of input
+     * @return described publisher
+     * @throws NullPointerException if any argument is {@code null}
+     * @see #publisher(Parser, Object)
+     */
+    public static <O, I> RecordPublisher<O, I> publisher(Parser<O, I> parser, I input, Executor executor) {
+        return new RecordPublisher<>(parser, input, executor);
+    }
 }
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Factories of parse results. A successful result is fused with its {@code Try},
+ * so every successful step of parsing allocates one object.
+ *
+ * @author Konrad Kleczkowski
+ */
+final class Results {
+    private Results() {
+    }
+
+    /**
+     * Creates successful {@code Try} of parse result.
+     *
+     * @param output an output
+     * @param input  an input
+     * @param <O>    type of output
+     * @param <I>    type of input
+     * @return a successful {@code Try}
+     */
+    static <O, I> Try<Parser.Result<O, I>> success(O output, I input) {
+        return new Success<>(output, input);
+    }
+
+    /**
+     * Creates successful {@code Try} of {@code int} parse result.
+     *
+     * @param output an output
+     * @param input  an input
+     * @param <I>    type of input
+     * @return a successful {@code Try}
+     */
+    static <I> Try<IntParser.Result<I>> successInt(int output, I input) {
+        return new IntSuccess<>(output, input);
+    }
+
+    /**
+     * Creates successful {@code Try} of {@code long} parse result.
+     *
+     * @param output an output
+     * @param input  an input
+     * @param <I>    type of input
+     * @return a successful {@code Try}
+     */
+    static <I> Try<LongParser.Result<I>> successLong(long output, I input) {
+        return new LongSuccess<>(output, input);
+    }
+
+    /**
+     * Creates successful {@code Try} of {@code double} parse result.
+     *
+     * @param output an output
+     * @param input  an input
+     * @param <I>    type of input
+     * @return a successful {@code Try}
+     */
+    static <I> Try<DoubleParser.Result<I>> successDouble(double output, I input) {
+        return new DoubleSuccess<>(output, input);
+    }
+
+    /**
+     * Casts failed {@code Try} to other type of value. Failed {@code Try} has no value,
+     * so it can be reused instead of creating new one.
+     *
+     * @param failure a failed {@code Try}
+     * @param <T>     type of value
+     * @return the same {@code Try}
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Try<T> failure(Try<?> failure) {
+        return (Try<T>) failure;
+    }
+
+    /**
+     * A successful {@code Try} that is its own result.
+     */
+    static final class Success<O, I> extends Parser.Result<O, I> implements Try<Parser.Result<O, I>> {
+        Success(O output, I input) {
+            super(output, input);
+        }
+
+        @Override
+        public Parser.Result<O, I> get() {
+            return this;
+        }
+
+        @Override
+        public boolean isSuccess() {
+            return true;
+        }
+
+        @Override
+        public <U> Try<U> flatMap(Function<? super Parser.Result<O, I>, Try<U>> mapper) {
+            return Objects.requireNonNull(mapper).apply(this);
+        }
+
+        @Override
+        public Try<Parser.Result<O, I>> recoverWith(Function<? super Throwable, Try<Parser.Result<O, I>>> mapper) {
+            return this;
+        }
+    }
+
+    /**
+     * A successful {@code Try} that is its own result.
+     */
+    static final class IntSuccess<I> extends IntParser.Result<I> implements Try<IntParser.Result<I>> {
+        IntSuccess(int output, I input) {
+            super(output, input);
+        }
+
+        @Override
+        public IntParser.Result<I> get() {
+            return this;
+        }
+
+        @Override
+        public boolean isSuccess() {
+            return true;
+        }
+
+        @Override
+        public <U> Try<U> flatMap(Function<? super IntParser.Result<I>, Try<U>> mapper) {
+            return Objects.requireNonNull(mapper).apply(this);
+        }
+
+        @Override
+        public Try<IntParser.Result<I>> recoverWith(Function<? super Throwable, Try<IntParser.Result<I>>> mapper) {
+            return this;
+        }
+    }
+
+    /**
+     * A successful {@code Try} that is its own result.
+     */
+    static final class LongSuccess<I> extends LongParser.Result<I> implements Try<LongParser.Result<I>> {
+        LongSuccess(long output, I input) {
+            super(output, input);
+        }
+
+        @Override
+        public LongParser.Result<I> get() {
+            return this;
+        }
+
+        @Override
+        public boolean isSuccess() {
+            return true;
+        }
+
+        @Override
+        public <U> Try<U> flatMap(Function<? super LongParser.Result<I>, Try<U>> mapper) {
+            return Objects.requireNonNull(mapper).apply(this);
+        }
+
+        @Override
+        public Try<LongParser.Result<I>> recoverWith(Function<? super Throwable, Try<LongParser.Result<I>>> mapper) {
+            return this;
+        }
+    }
+
+    /**
+     * A successful {@code Try} that is its own result.
+     */
+    static final class DoubleSuccess<I> extends DoubleParser.Result<I> implements Try<DoubleParser.Result<I>> {
+        DoubleSuccess(double output, I input) {
+            super(output, input);
+        }
+
+        @Override
+        public DoubleParser.Result<I> get() {
+            return this;
+        }
+
+        @Override
+        public boolean isSuccess() {
+            return true;
+        }
+
+        @Override
+        public <U> Try<U> flatMap(Function<? super DoubleParser.Result<I>, Try<U>> mapper) {
+            return Objects.requireNonNull(mapper).apply(this);
+        }
+
+        @Override
+        public Try<DoubleParser.Result<I>> recoverWith(Function<? super Throwable, Try<DoubleParser.Result<I>>> mapper) {
+            return this;
+        }
+    }
+}
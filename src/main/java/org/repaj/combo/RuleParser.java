@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.Objects;
+
+/**
+ * A named reference to a parser that may be defined after the reference is used,
+ * so grammar rules can refer to each other, or to themselves, without lambdas.
+ * A rule is a scope of {@linkplain Parsers#cut() cuts} inside its definition.
+ *
+ * @author Konrad Kleczkowski
+ * @see Parsers#rule(String)
+ */
+public final class RuleParser<O, I> extends Combinator<O, I> implements Trampoline.CutScope {
+    private final String name;
+    volatile Parser<O, I> definition;
+
+    RuleParser(String name) {
+        this.name = Objects.requireNonNull(name);
+    }
+
+    /**
+     * Defines this rule.
+     *
+     * @param definition a parser that defines this rule
+     * @return this rule
+     * @throws NullPointerException  if {@code definition} is {@code null}
+     * @throws IllegalStateException if this rule is already defined
+     */
+    public RuleParser<O, I> define(Parser<O, I> definition) {
+        Objects.requireNonNull(definition);
+        if (this.definition != null) {
+            throw new IllegalStateException("rule " + name + " is already defined");
+        }
+        this.definition = definition;
+        return this;
+    }
+
+    /**
+     * Gets name of this rule.
+     *
+     * @return a name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets a parser that defines this rule.
+     *
+     * @return a parser that defines this rule
+     * @throws IllegalStateException if this rule is not defined yet
+     */
+    public Parser<O, I> getDefinition() {
+        Parser<O, I> definition = this.definition;
+        if (definition == null) {
+            throw new IllegalStateException("rule " + name + " is not defined");
+        }
+        return definition;
+    }
+
+    @Override
+    void enter(Trampoline trampoline, I input) {
+        Parser<O, I> definition = getDefinition();
+        trampoline.push(this);
+        trampoline.call(definition, input);
+    }
+
+    @Override
+    void resume(Trampoline trampoline, Try<? extends Result<?, ?>> result) {
+        trampoline.complete(result);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
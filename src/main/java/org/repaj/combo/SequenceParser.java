@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.function.BiFunction;
+
+/**
+ * A parser that sequentially parses using two parsers and combines their outputs.
+ * Unlike {@link FlatMapParser}, both parsers are known before parsing.
+ *
+ * @author Konrad Kleczkowski
+ * @see Parser#then(Parser, BiFunction)
+ */
+public final class SequenceParser<L, R, O, I> extends Combinator<O, I> {
+    private static final BiFunction<Object, Object, Object> LEFT = (left, right) -> left;
+    private static final BiFunction<Object, Object, Object> RIGHT = (left, right) -> right;
+
+    final Parser<L, I> left;
+    final Parser<R, I> right;
+    private final BiFunction<? super L, ? super R, ? extends O> combiner;
+
+    SequenceParser(Parser<L, I> left, Parser<R, I> right, BiFunction<? super L, ? super R, ? extends O> combiner) {
+        this.left = left;
+        this.right = right;
+        this.combiner = combiner;
+    }
+
+    /**
+     * Returns a combiner that keeps output of the left parser. The same instance is returned
+     * every time, so sequences that keep the left output have equal combiners.
+     *
+     * @param <L> type of left output
+     * @param <R> type of right output
+     * @return a combiner that keeps output of the left parser
+     */
+    @SuppressWarnings("unchecked")
+    static <L, R> BiFunction<L, R, L> keepLeft() {
+        return (BiFunction<L, R, L>) (BiFunction<?, ?, ?>) LEFT;
+    }
+
+    /**
+     * Returns a combiner that keeps output of the right parser. The same instance is returned
+     * every time, so sequences that keep the right output have equal combiners.
+     *
+     * @param <L> type of left output
+     * @param <R> type of right output
+     * @return a combiner that keeps output of the right parser
+     */
+    @SuppressWarnings("unchecked")
+    static <L, R> BiFunction<L, R, R> keepRight() {
+        return (BiFunction<L, R, R>) (BiFunction<?, ?, ?>) RIGHT;
+    }
+
+    /**
+     * Gets a parser that parses first.
+     *
+     * @return a parser that parses first
+     */
+    public Parser<L, I> getLeft() {
+        return left;
+    }
+
+    /**
+     * Gets a parser that parses next.
+     *
+     * @return a parser that parses next
+     */
+    public Parser<R, I> getRight() {
+        return right;
+    }
+
+    /**
+     * Gets a function that combines outputs.
+     *
+     * @return a function that combines outputs
+     */
+    public BiFunction<? super L, ? super R, ? extends O> getCombiner() {
+        return combiner;
+    }
+
+    @Override
+    void enter(Trampoline trampoline, I input) {
+        trampoline.push(new Step());
+        trampoline.call(left, input);
+    }
+
+    private final class Step implements Trampoline.Continuation {
+        private boolean leftParsed;
+        private L leftOutput;
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void resume(Trampoline trampoline, Try<? extends Result<?, ?>> result) {
+            if (!result.isSuccess()) {
+                trampoline.complete(result);
+            } else if (!leftParsed) {
+                Result<L, I> liResult = (Result<L, I>) result.getUnchecked();
+                leftParsed = true;
+                leftOutput = liResult.output;
+                trampoline.push(this);
+                trampoline.call(right, liResult.input);
+            } else {
+                Result<R, I> riResult = (Result<R, I>) result.getUnchecked();
+                trampoline.complete(Results.success(combiner.apply(leftOutput, riResult.output), riResult.input));
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.repaj.combo;
+
+/**
+ * A parser that consumes nothing and always succeeds with the same output.
+ *
+ * @author Konrad Kleczkowski
+ * @see Parser#succeed(Object)
+ */
+public final class SucceedParser<O, I> extends Combinator<O, I> {
+    final O output;
+
+    SucceedParser(O output) {
+        this.output = output;
+    }
+
+    /**
+     * Gets an output this parser succeeds with.
+     *
+     * @return an output
+     */
+    public O getOutput() {
+        return output;
+    }
+
+    @Override
+    void enter(Trampoline trampoline, I input) {
+        trampoline.complete(Results.success(output, input));
+    }
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An engine that runs combinator graphs in constant depth of Java stack.
+ * Combinators do not call parsers they are built of; instead they push
+ * their continuation onto explicit stack and tell the engine which parser
+ * should be run next. Parsers that are not combinators are called directly.
+ *
+ * @author Konrad Kleczkowski
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+final class Trampoline {
+    private static final int STEPS_BETWEEN_CANCELLATION_CHECKS = 1024;
+
+    private final ArrayDeque<Object> continuations = new ArrayDeque<>();
+
+    private final boolean suspendable;
+    private Parser parser;
+    private Object input;
+    private Try result;
+    private CharInput watermark;
+    private int globalCuts;
+    private Map<Map, Pruning> memos;
+    private Map<Parser, Map<Object, Try<? extends Parser.Result<?, ?>>>> seeds;
+    private Map<Parser, Map> tables;
+
+    private Trampoline(boolean suspendable) {
+        this.suspendable = suspendable;
+    }
+
+    /**
+     * Runs {@code parser} on {@code input} until its result is known.
+     *
+     * @param parser a parser
+     * @param input  an input
+     * @param <O>    type of output
+     * @param <I>    type of input
+     * @return a {@code Try} of parse result
+     */
+    static <O, I> Try<Parser.Result<O, I>> run(Parser<O, I> parser, I input) {
+        Trampoline trampoline = new Trampoline(false);
+        trampoline.call(parser, input);
+        return trampoline.proceed();
+    }
+
+    /**
+     * Creates engine that runs {@code parser} on {@code input} once {@linkplain #proceed() proceeded}.
+     * It suspends when a parser needs input that has not been received yet, so that parser
+     * is run again when the engine proceeds. Everything else that was parsed is kept.
+     *
+     * @param parser a parser
+     * @param input  an input
+     * @return newly created engine
+     */
+    static Trampoline suspendable(Parser<?, ?> parser, Object input) {
+        Trampoline trampoline = new Trampoline(true);
+        trampoline.call(parser, input);
+        return trampoline;
+    }
+
+
+    /**
+     * Schedules {@code parser} to be run on {@code input} in the next step.
+     *
+     * @param parser a parser
+     * @param input  an input
+     */
+    void call(Parser<?, ?> parser, Object input) {
+        this.parser = parser;
+        this.input = input;
+    }
+
+    /**
+     * Schedules {@code continuation} to be resumed with result of the next parser
+     * that completes.
+     *
+     * @param continuation a continuation
+     */
+    void push(Continuation continuation) {
+        continuations.push(continuation);
+    }
+
+    /**
+     * Schedules {@code combinator} to be {@linkplain Combinator#resume(Trampoline, Try) resumed}
+     * with result of the next parser that completes. Combinators that need no state
+     * of their own are continuations themselves, so no continuation is allocated.
+     *
+     * @param combinator a combinator
+     */
+    void push(Combinator<?, ?> combinator) {
+        continuations.push(combinator);
+    }
+
+    /**
+     * Commits to alternatives taken since the innermost {@link CutScope} on the stack,
+     * so {@linkplain Backtrack backtrack points} above the scope no longer try parsing again
+     * from earlier input. If there is no scope at all, nothing can return before {@code input},
+     * so memo entries of earlier inputs are dropped as well, once memos are
+     * {@linkplain #memoized(Map) stored to} or the run ends.
+     *
+     * @param input an input where the cut is
+     */
+    void cut(Object input) {
+        // a committed backtrack point has everything up to its scope committed below it,
+        // so scanning stops there
+        int scanned = 0;
+        boolean global = true;
+        for (Object frame : continuations) {
+            if (frame instanceof CutScope) {
+                global = false;
+                break;
+            }
+            if (frame instanceof Backtrack && ((Backtrack) frame).state != Backtrack.OPEN) {
+                global = ((Backtrack) frame).state == Backtrack.COMMITTED_GLOBALLY;
+                break;
+            }
+            scanned++;
+        }
+        Iterator<Object> frames = continuations.iterator();
+        for (int i = 0; i < scanned; i++) {
+            Object frame = frames.next();
+            if (frame instanceof Backtrack) {
+                Backtrack backtrack = (Backtrack) frame;
+                backtrack.state = global ? Backtrack.COMMITTED_GLOBALLY : Backtrack.COMMITTED;
+                backtrack.release();
+            }
+        }
+        if (global && input instanceof CharInput) {
+            // a cut only moves the watermark, so it does not depend on size of memos
+            watermark = (CharInput) input;
+            globalCuts++;
+        }
+    }
+
+    /**
+     * Registers that a result of this run was stored to {@code memo}, so entries
+     * of inputs before global cuts can be dropped from it. A memo is pruned once as many
+     * entries were stored to it as it had after it was pruned before, so each entry is
+     * scanned constant number of times on average.
+     *
+     * @param memo a memo
+     */
+    void memoized(Map<?, ?> memo) {
+        if (memos == null) {
+            memos = new IdentityHashMap<>();
+        }
+        Pruning pruning = memos.get(memo);
+        if (pruning == null) {
+            pruning = new Pruning();
+            memos.put(memo, pruning);
+        }
+        if (++pruning.stored > pruning.size) {
+            prune(memo, pruning);
+        }
+    }
+
+    private void prune(Map<?, ?> memo, Pruning pruning) {
+        if (pruning.globalCuts != globalCuts) {
+            CharInput position = watermark;
+            memo.keySet().removeIf(key -> key instanceof CharInput && ((CharInput) key).precedes(position));
+            pruning.globalCuts = globalCuts;
+        }
+        pruning.stored = 0;
+        pruning.size = memo.size();
+    }
+
+    /**
+     * Gets seeds of {@code parser} grown in this run, by input. Seeds are kept only
+     * as long as the run, so parses run by other threads do not see them.
+     *
+     * @param parser a left-recursive parser
+     * @return a modifiable map of seeds
+     */
+    Map<Object, Try<? extends Parser.Result<?, ?>>> seeds(LeftRecursiveParser<?, ?> parser) {
+        if (seeds == null) {
+            seeds = new IdentityHashMap<>();
+        }
+        return seeds.computeIfAbsent(parser, p -> new HashMap<>());
+    }
+
+    /**
+     * Gets a table of results of {@code parser} remembered in this run, by input.
+     * The table is kept only as long as the run, so parses run by other threads do not see it
+     * and nothing is left behind once parsing ends.
+     *
+     * @param parser a memoizing parser
+     * @param <O>    type of output
+     * @param <I>    type of input
+     * @return a modifiable table of results
+     */
+    <O, I> Map<I, Try<Parser.Result<O, I>>> memo(MemoParser<O, I> parser) {
+        if (tables == null) {
+            tables = new IdentityHashMap<>();
+        }
+        return tables.computeIfAbsent(parser, p -> new HashMap<>());
+    }
+
+    /**
+     * Tests whether parsing from {@code from} to {@code to} may have consumed anything.
+     * Inputs of the same {@link Comparable} class, e.g. {@link CharInput}, are positions,
+     * so they are compared. Other inputs may be mutable, like
+     * {@link org.repaj.combo.lexer.StreamTokenizer}, which is the same object before
+     * and after a token; only a distinct input equal to {@code from} is known to consume nothing.
+     *
+     * @param from an input before parsing
+     * @param to   an input after parsing
+     * @return {@code false} if nothing was consumed, {@code true} if something was or it is unknown
+     */
+    static boolean advanced(Object from, Object to) {
+        if (from instanceof Comparable && to != null && from.getClass() == to.getClass()) {
+            return ((Comparable) from).compareTo(to) != 0;
+        }
+        return from == to || !Objects.equals(from, to);
+    }
+
+    /**
+     * Completes current step with {@code result}.
+     *
+     * @param result a result
+     */
+    void complete(Try<? extends Parser.Result<?, ?>> result) {
+        this.result = result;
+    }
+
+    /**
+     * Runs until result is known or a parser needs more input.
+     *
+     * @param <O> type of output
+     * @param <I> type of input
+     * @return a {@code Try} of parse result, or {@code null} if a parser needs more input
+     */
+    <O, I> Try<Parser.Result<O, I>> proceed() {
+        int steps = 0;
+        while (true) {
+            if (++steps == STEPS_BETWEEN_CANCELLATION_CHECKS) {
+                steps = 0;
+                Cancellation.check();
+            }
+            if (this.parser != null) {
+                Parser current = this.parser;
+                Object currentInput = this.input;
+                this.parser = null;
+                try {
+                    enter(current, currentInput);
+                } catch (PushParser.Suspension e) {
+                    // the end is examined before a step changes anything, so the step is only run again
+                    if (!suspendable) {
+                        throw e;
+                    }
+                    call(current, currentInput);
+                    return null;
+                }
+            } else {
+                Object continuation = continuations.poll();
+                if (continuation == null) {
+                    if (memos != null) {
+                        memos.forEach(this::prune);
+                    }
+                    return result;
+                }
+                Try current = result;
+                result = null;
+                resume(continuation, current);
+            }
+        }
+    }
+
+    // Built-in parsers are final classes, so instanceof tests of them compile to comparisons
+    // of class, and calls after them are direct calls that JIT can inline, instead of
+    // one megamorphic call site for whole grammar.
+
+    private void enter(Parser parser, Object input) {
+        if (parser instanceof FlatMapParser) {
+            ((FlatMapParser) parser).enter(this, input);
+        } else if (parser instanceof MapParser) {
+            ((MapParser) parser).enter(this, input);
+        } else if (parser instanceof SequenceParser) {
+            ((SequenceParser) parser).enter(this, input);
+        } else if (parser instanceof ChoiceParser) {
+            ((ChoiceParser) parser).enter(this, input);
+        } else if (parser instanceof RepeatParser) {
+            ((RepeatParser) parser).enter(this, input);
+        } else if (parser instanceof SucceedParser) {
+            complete(Results.success(((SucceedParser) parser).output, input));
+        } else if (parser instanceof LiteralParser) {
+            complete(((LiteralParser) parser).parse((CharInput) input));
+        } else if (parser instanceof CharacterParser) {
+            complete(((CharacterParser) parser).parse((CharInput) input));
+        } else if (parser instanceof Combinator) {
+            ((Combinator) parser).enter(this, input);
+        } else {
+            complete(parser.parse(input));
+        }
+    }
+
+    private void resume(Object continuation, Try result) {
+        if (continuation instanceof FlatMapParser) {
+            ((FlatMapParser) continuation).resume(this, result);
+        } else if (continuation instanceof MapParser) {
+            ((MapParser) continuation).resume(this, result);
+        } else if (continuation instanceof Combinator) {
+            ((Combinator) continuation).resume(this, result);
+        } else {
+            ((Continuation) continuation).resume(this, result);
+        }
+    }
+
+    /**
+     * A continuation of a combinator that waits for result of other parser.
+     */
+    interface Continuation {
+        /**
+         * Resumes with {@code result}. Must either {@linkplain #call(Parser, Object) call}
+         * another parser or {@linkplain #complete(Try) complete}.
+         *
+         * @param trampoline an engine
+         * @param result     a result of awaited parser
+         */
+        void resume(Trampoline trampoline, Try<? extends Parser.Result<?, ?>> result);
+    }
+
+    /**
+     * A continuation that may parse again from earlier input, e.g. to try the next alternative,
+     * unless a {@linkplain #cut(Object) cut} commits it.
+     */
+    abstract static class Backtrack implements Continuation {
+        private static final int OPEN = 0;
+        private static final int COMMITTED = 1;
+        private static final int COMMITTED_GLOBALLY = 2;
+
+        private int state;
+
+        /**
+         * Tests whether this continuation is committed to the current alternative.
+         *
+         * @return {@code true} if it must not parse again from earlier input
+         */
+        final boolean isCommitted() {
+            return state != OPEN;
+        }
+
+        /**
+         * Makes this continuation a backtrack point again, e.g. when next occurrence
+         * of repetition starts.
+         */
+        final void reopen() {
+            state = OPEN;
+        }
+
+        /**
+         * Releases state kept only to parse again from earlier input.
+         */
+        void release() {
+        }
+    }
+
+    /**
+     * A state of pruning of a memo that holds results of this run.
+     */
+    private static final class Pruning {
+        int stored;
+        int size;
+        int globalCuts;
+    }
+
+    /**
+     * A marker of a continuation that limits scope of a {@linkplain #cut(Object) cut}.
+     * Cuts inside of it do not commit backtrack points outside of it.
+     */
+    interface CutScope {
+    }
+}
@@ -68,6 +68,11 @@ public interface Try<T> {
                 return value;
             }
 
+            @Override
+            public boolean isSuccess() {
+                return true;
+            }
+
             @Override
             public <U> Try<U> flatMap(Function<? super T, Try<U>> mapper) {
                 return Objects.requireNonNull(mapper).apply(value);
@@ -96,6 +101,11 @@ public interface Try<T> {
                 throw cause;
             }
 
+            @Override
+            public boolean isSuccess() {
+                return false;
+            }
+
             @SuppressWarnings("unchecked")
             @Override
             public <U> Try<U> flatMap(Function<? super T, Try<U>> mapper) {
@@ -109,6 +119,51 @@ public interface Try<T> {
         };
     }
 
+    /**
+     * Creates {@code Try} that fails by throwing cause obtained from {@code causeSupplier}.
+     * The cause is not created, thus its stack trace is not filled in, until
+     * it is needed, e.g. when {@link #get()} is called.
+     *
+     * @param causeSupplier a supplier of cause
+     * @param <T>           type of value
+     * @return a failed {@code Try}
+     * @throws NullPointerException if {@code causeSupplier} is {@code null}
+     */
+    static <T> Try<T> failLazily(Supplier<? extends Throwable> causeSupplier) {
+        Objects.requireNonNull(causeSupplier);
+        return new Try<T>() {
+            private Throwable cause;
+
+            private Throwable cause() {
+                if (cause == null) {
+                    cause = Objects.requireNonNull(causeSupplier.get());
+                }
+                return cause;
+            }
+
+            @Override
+            public T get() throws Throwable {
+                throw cause();
+            }
+
+            @Override
+            public boolean isSuccess() {
+                return false;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public <U> Try<U> flatMap(Function<? super T, Try<U>> mapper) {
+                return (Try<U>) this;
+            }
+
+            @Override
+            public Try<T> recoverWith(Function<? super Throwable, Try<T>> mapper) {
+                return Objects.requireNonNull(mapper.apply(cause()));
+            }
+        };
+    }
+
     /**
      * If a value is present, return it, otherwise throw an exception
      * due to absence of a value.
@@ -142,6 +197,15 @@ public interface Try<T> {
      */
     Try<T> recoverWith(Function<? super Throwable, Try<T>> mapper);
 
+    /**
+     * Checks if a value is present.
+     *
+     * @return {@code true} if value is present, otherwise {@code false}
+     */
+    default boolean isSuccess() {
+        return map(t -> true).recover(throwable -> false).getUnchecked();
+    }
+
     /**
      * If a value is present, return it, otherwise throw an wrapped
      * exception in {@link IllegalStateException}.
@@ -189,16 +253,16 @@ public interface Try<T> {
 
     /**
      * If value is present, and satisfies given predicate,
-     * return this {@code Try}, otherwise return {@link Try#fail(Throwable)}
+     * return this {@code Try}, otherwise return {@link Try#failLazily(Supplier)}
      * with {@link java.util.NoSuchElementException}
      *
      * @param predicate a predicate
-     * @return this {@code Try}, otherwise {@link Try#fail(Throwable)}
+     * @return this {@code Try}, otherwise {@link Try#failLazily(Supplier)}
      * with {@link java.util.NoSuchElementException}
      * @throws NullPointerException if predicate is {@code null}
      */
     default Try<T> filter(Predicate<? super T> predicate) {
-        return flatMap(t -> predicate.test(t) ? this : fail(new NoSuchElementException()));
+        return flatMap(t -> predicate.test(t) ? this : failLazily(NoSuchElementException::new));
     }
 
     /**
@@ -211,7 +275,8 @@ public interface Try<T> {
      *                              {@code Try} is {@code null}
      */
     default Try<T> orElseTry(Supplier<Try<T>> trySupplier) {
-        return recoverWith(throwable -> trySupplier.get());
+        Objects.requireNonNull(trySupplier);
+        return isSuccess() ? this : Objects.requireNonNull(trySupplier.get());
     }
 
     /**
@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.repaj.combo.lexer;
+
+import org.repaj.combo.CharPredicate;
+
+import java.nio.CharBuffer;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A token that is a run of characters of a class, optionally led by one character of
+ * another class, e.g. {@code \s*}, {@code \d+} or {@code [A-Za-z_][A-Za-z0-9_]*}.
+ * Classes are tested by lookup tables for ASCII characters, so such tokens are
+ * matched by a tight loop over buffer rather than a regex engine.
+ * <p>
+ * {@link StreamTokenizer} detects patterns of such tokens on its own,
+ * so they are matched this way also by {@link StreamTokenizer#next(Pattern)}.
+ *
+ * @author Konrad Kleczkowski
+ * @see StreamTokenizer#next(CharClassToken)
+ */
+public final class CharClassToken {
+    static final int MISMATCH = -1;
+    static final int UNSUPPORTED = -2;
+
+    /**
+     * A token that patterns not of simple form are detected as.
+     */
+    static final CharClassToken NONE = new CharClassToken(null, null, false);
+
+    private final Table head;
+    private final Table tail;
+    private final boolean codePoints;
+
+    private CharClassToken(Table head, Table tail, boolean codePoints) {
+        this.head = head;
+        this.tail = tail;
+        this.codePoints = codePoints;
+    }
+
+    /**
+     * Creates token that is a character satisfying {@code first} followed by any number
+     * of characters satisfying {@code rest}.
+     *
+     * @param first a predicate of the first character
+     * @param rest  a predicate of the rest of characters
+     * @return newly created {@code CharClassToken}
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public static CharClassToken of(CharPredicate first, CharPredicate rest) {
+        return new CharClassToken(new Table(first), new Table(rest), false);
+    }
+
+    /**
+     * Creates token that is one or more characters satisfying {@code predicate}.
+     *
+     * @param predicate a predicate of characters
+     * @return newly created {@code CharClassToken}
+     * @throws NullPointerException if {@code predicate} is {@code null}
+     */
+    public static CharClassToken oneOrMore(CharPredicate predicate) {
+        Table table = new Table(predicate);
+        return new CharClassToken(table, table, false);
+    }
+
+    /**
+     * Creates token that is zero or more characters satisfying {@code predicate}.
+     *
+     * @param predicate a predicate of characters
+     * @return newly created {@code CharClassToken}
+     * @throws NullPointerException if {@code predicate} is {@code null}
+     */
+    public static CharClassToken zeroOrMore(CharPredicate predicate) {
+        return new CharClassToken(null, new Table(predicate), false);
+    }
+
+    /**
+     * Detects whether {@code pattern} is of form {@code C}, {@code C*}, {@code C+} or {@code CD*},
+     * where {@code C} and {@code D} match exactly one character, e.g. a character class.
+     *
+     * @param pattern a pattern
+     * @return an equivalent token, or {@link #NONE} if pattern is not of such form
+     */
+    static CharClassToken compile(Pattern pattern) {
+        // with canonical equivalence a class may match a sequence of characters
+        if ((pattern.flags() & (Pattern.COMMENTS | Pattern.LITERAL | Pattern.CANON_EQ)) != 0) {
+            return NONE;
+        }
+        String regex = pattern.pattern();
+        int first = atomEnd(regex, 0);
+        if (first < 0) {
+            return NONE;
+        }
+        Table head = Table.of(regex.substring(0, first), pattern.flags());
+        if (head == null) {
+            return NONE;
+        }
+        if (first == regex.length()) {
+            return new CharClassToken(head, null, true);
+        }
+        char quantifier = regex.charAt(first);
+        if (first + 1 == regex.length() && (quantifier == '*' || quantifier == '+')) {
+            return new CharClassToken(quantifier == '+' ? head : null, head, true);
+        }
+        int second = atomEnd(regex, first);
+        if (second < 0 || second + 1 != regex.length() || regex.charAt(second) != '*') {
+            return NONE;
+        }
+        Table tail = Table.of(regex.substring(first, second), pattern.flags());
+        return tail == null ? NONE : new CharClassToken(head, tail, true);
+    }
+
+    private static int atomEnd(String regex, int start) {
+        int length = regex.length();
+        if (start >= length) {
+            return -1;
+        }
+        char c = regex.charAt(start);
+        if (c == '[') {
+            int i = start + 1;
+            if (i < length && regex.charAt(i) == '^') {
+                i++;
+            }
+            if (i < length && regex.charAt(i) == ']') {
+                return -1;
+            }
+            while (i < length) {
+                char d = regex.charAt(i);
+                if (d == '\\') {
+                    if (i + 1 < length && regex.charAt(i + 1) == 'Q') {
+                        return -1;
+                    }
+                    i += 2;
+                } else if (d == '[' || d == '&') {
+                    // unions and intersections of classes are left to the regex engine
+                    return -1;
+                } else if (d == ']') {
+                    return i + 1;
+                } else {
+                    i++;
+                }
+            }
+            return -1;
+        } else if (c == '\\') {
+            if (start + 1 >= length) {
+                return -1;
+            }
+            char e = regex.charAt(start + 1);
+            if (e == 'p' || e == 'P') {
+                if (start + 2 < length && regex.charAt(start + 2) == '{') {
+                    int close = regex.indexOf('}', start + 2);
+                    return close < 0 ? -1 : close + 1;
+                }
+                return start + 3 <= length ? start + 3 : -1;
+            }
+            if ("dDsSwWhHvV".indexOf(e) >= 0 || !Character.isLetterOrDigit(e)) {
+                return start + 2;
+            }
+            return -1;
+        } else if ("^$|?*+(){}]".indexOf(c) >= 0 || Character.isSurrogate(c)) {
+            return -1;
+        }
+        return start + 1;
+    }
+
+    /**
+     * Matches this token at position of {@code buffer}.
+     *
+     * @param buffer a buffer
+     * @return length of match, {@link #MISMATCH}, or {@link #UNSUPPORTED} if a character
+     * that is a part of surrogate pair is met and token was detected from a pattern
+     */
+    int match(CharBuffer buffer) {
+        int start = buffer.position();
+        int remaining = buffer.remaining();
+        int length = 0;
+        if (head != null) {
+            if (remaining == 0) {
+                return MISMATCH;
+            }
+            char c = buffer.get(start);
+            if (codePoints && Character.isSurrogate(c)) {
+                return UNSUPPORTED;
+            }
+            if (!head.test(c)) {
+                return MISMATCH;
+            }
+            length = 1;
+        }
+        if (tail != null) {
+            while (length < remaining) {
+                char c = buffer.get(start + length);
+                if (codePoints && Character.isSurrogate(c)) {
+                    return UNSUPPORTED;
+                }
+                if (!tail.test(c)) {
+                    break;
+                }
+                length++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Tests whether matching hit end of buffer, i.e. whether more input could change result.
+     *
+     * @param buffer a buffer
+     * @param result result of {@link #match(CharBuffer)}
+     * @return {@code true} if matching hit end of buffer
+     */
+    boolean hitEnd(CharBuffer buffer, int result) {
+        if (result == MISMATCH) {
+            return !buffer.hasRemaining();
+        }
+        return tail != null && result == buffer.remaining();
+    }
+
+    /**
+     * A class of characters with lookup table of ASCII characters.
+     */
+    private static final class Table {
+        private final long low;
+        private final long high;
+        private final CharPredicate predicate;
+
+        Table(CharPredicate predicate) {
+            this.predicate = Objects.requireNonNull(predicate);
+            long low = 0;
+            long high = 0;
+            for (char c = 0; c < 64; c++) {
+                if (predicate.test(c)) {
+                    low |= 1L << c;
+                }
+                if (predicate.test((char) (c + 64))) {
+                    high |= 1L << c;
+                }
+            }
+            this.low = low;
+            this.high = high;
+        }
+
+        static Table of(String atom, int flags) {
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(atom, flags);
+            } catch (PatternSyntaxException e) {
+                return null;
+            }
+            return new Table(new Blocks(pattern));
+        }
+
+        boolean test(char c) {
+            if (c < 64) {
+                return (low & 1L << c) != 0;
+            } else if (c < 128) {
+                return (high & 1L << c - 64) != 0;
+            }
+            return predicate.test(c);
+        }
+    }
+
+    /**
+     * A class of characters matched by a single-character pattern, whose members are found
+     * for a whole block of 256 characters when a character of the block is tested first.
+     */
+    private static final class Blocks implements CharPredicate {
+        private static final int BLOCK_SHIFT = 8;
+
+        private final Pattern pattern;
+        private final AtomicReferenceArray<long[]> blocks = new AtomicReferenceArray<>(1 << 16 - BLOCK_SHIFT);
+
+        Blocks(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        public boolean test(char c) {
+            int index = c >>> BLOCK_SHIFT;
+            long[] block = blocks.get(index);
+            if (block == null) {
+                block = fill(index);
+                blocks.set(index, block);
+            }
+            return (block[(c & (1 << BLOCK_SHIFT) - 1) >>> 6] & 1L << c) != 0;
+        }
+
+        private long[] fill(int index) {
+            long[] block = new long[1 << BLOCK_SHIFT - 6];
+            char[] chars = new char[1];
+            Matcher matcher = pattern.matcher(CharBuffer.wrap(chars));
+            for (int i = 0; i < 1 << BLOCK_SHIFT; i++) {
+                chars[0] = (char) (index << BLOCK_SHIFT | i);
+                if (matcher.reset().matches()) {
+                    block[i >>> 6] |= 1L << i;
+                }
+            }
+            return block;
+        }
+    }
+}
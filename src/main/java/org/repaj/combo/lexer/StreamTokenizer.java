@@ -22,6 +22,9 @@
 
 package org.repaj.combo.lexer;
 
+import org.repaj.combo.Parser;
+import org.repaj.combo.Try;
+
 import java.io.IOException;
 import java.nio.CharBuffer;
 import java.util.InputMismatchException;
@@ -46,8 +49,11 @@ public class StreamTokenizer implements AutoCloseable {
     private boolean closed;
 
     private int position;
+    private int lastTokenId;
+    private String lastToken;
 
     private LRUCache<String, Pattern> patternCache = new LRUCache<>(16);
+    private LRUCache<Pattern, CharClassToken> tokenCache = new LRUCache<>(16);
 
     /**
      * Creates tokenizer with whitespace skip pattern.
@@ -85,6 +91,46 @@ public class StreamTokenizer implements AutoCloseable {
         this.buffer = buffer;
     }
 
+    /**
+     * Creates parser of next token with skipping. The parser fails, without
+     * consuming the token, if there is no token satisfying pattern. Characters
+     * matched by skip pattern are consumed before the token, even if the parser fails.
+     *
+     * @param regex a regex string
+     * @return described parser
+     * @see #next(String)
+     */
+    public static Parser<String, StreamTokenizer> token(String regex) {
+        return token(Pattern.compile(regex));
+    }
+
+    /**
+     * Creates parser of next token with skipping. The parser fails, without
+     * consuming the token, with {@link InputMismatchException} if there is no token
+     * satisfying pattern, and with {@link NoSuchElementException} if source hit end of stream
+     * or the token does not fit in buffer; other failures of source are thrown
+     * as by {@link #next(Pattern)}. Characters matched by skip pattern are consumed
+     * before the token, even if the parser fails.
+     *
+     * @param pattern a pattern
+     * @return described parser
+     * @see #next(Pattern)
+     */
+    public static Parser<String, StreamTokenizer> token(Pattern pattern) {
+        return tokenizer -> {
+            String token;
+            try {
+                token = tokenizer.next(pattern);
+            } catch (InputMismatchException e) {
+                return Try.fail(e);
+            } catch (NoSuchElementException e) {
+                // there is no token at all, which ends repetitions as a mismatch does
+                return Try.fail(e);
+            }
+            return Parser.Result.success(token, tokenizer);
+        };
+    }
+
     /**
      * Changes skip pattern. If null, then skip is not preformed.
      *
@@ -124,34 +170,126 @@ public class StreamTokenizer implements AutoCloseable {
      * @throws NoSuchElementException if source is closed or hit end of stream
      */
     public String next(Pattern pattern) {
-        if (skipPattern != null) {
-            rawNext(skipPattern);
-        }
+        skip();
         return rawNext(pattern);
     }
 
     /**
-     * Attempts to obtain next token without skipping.
+     * Attempts to obtain next token of characters of classes, with skipping.
      *
-     * @param pattern a pattern
+     * @param token a token
      * @return obtained next token
-     * @throws InputMismatchException if there's no token satisfying pattern
+     * @throws InputMismatchException if there's no token satisfying token
      * @throws NoSuchElementException if source is closed or hit end of stream
      */
-    public String rawNext(Pattern pattern) {
+    public String next(CharClassToken token) {
+        skip();
+        return rawNext(token);
+    }
+
+    /**
+     * Attempts to obtain the longest next token of {@code tokens}, with skipping.
+     * Text of the token is available by {@link #getLastToken()}.
+     *
+     * @param tokens a set of tokens
+     * @return an identifier of obtained token
+     * @throws InputMismatchException if there's no token of {@code tokens}
+     * @throws NoSuchElementException if source is closed or hit end of stream
+     */
+    public int next(TokenSet tokens) {
+        skip();
+        return rawNext(tokens);
+    }
+
+    /**
+     * Attempts to obtain the longest next token of {@code tokens} without skipping.
+     *
+     * @param tokens a set of tokens
+     * @return an identifier of obtained token
+     * @throws InputMismatchException if there's no token of {@code tokens}
+     * @throws NoSuchElementException if source is closed or hit end of stream
+     */
+    public int rawNext(TokenSet tokens) {
+        int end = awaitToken(tokens);
+        int id = lastTokenId;
+        lastToken = take(end);
+        return id;
+    }
+
+    /**
+     * Gets text of token last obtained from {@link TokenSet}.
+     *
+     * @return text of token, or {@code null} if no token was obtained from {@code TokenSet}
+     */
+    public String getLastToken() {
+        return lastToken;
+    }
+
+    /**
+     * Attempts to obtain next token that is {@code literal}, with skipping. Characters are
+     * compared in buffer directly, so no pattern is matched and no string is created.
+     *
+     * @param literal a literal
+     * @throws InputMismatchException if next token is not {@code literal}
+     * @throws NoSuchElementException if source is closed or hit end of stream
+     */
+    public void nextLiteral(CharSequence literal) {
+        if (!tryLiteral(literal)) {
+            throwFor();
+        }
+    }
+
+    /**
+     * Attempts to obtain next token that is {@code literal}, with skipping.
+     * Unlike {@link #nextLiteral(CharSequence)}, a mismatch is not exceptional.
+     * Characters matched by skip pattern are consumed even if it is a mismatch.
+     *
+     * @param literal a literal
+     * @return {@code true} if next token was {@code literal}, otherwise {@code false}
+     * @throws NoSuchElementException if source is closed
+     */
+    public boolean tryLiteral(CharSequence literal) {
+        if (closed) {
+            throw new NoSuchElementException();
+        }
+        skip();
         while (true) {
-            String token = getTokenFromBuffer(pattern);
-            if (!closed && token != null) {
-                return token;
+            if (!closed && isLiteralInBuffer(literal)) {
+                consume(literal.length());
+                return true;
             }
             if (needInput && !closed) {
                 readSome();
             } else {
-                throwFor();
+                return false;
             }
         }
     }
 
+    /**
+     * Attempts to obtain next token without skipping.
+     *
+     * @param pattern a pattern
+     * @return obtained next token
+     * @throws InputMismatchException if there's no token satisfying pattern
+     * @throws NoSuchElementException if source is closed or hit end of stream
+     */
+    public String rawNext(Pattern pattern) {
+        return take(awaitToken(pattern));
+    }
+
+    /**
+     * Attempts to obtain next token of characters of classes without skipping.
+     *
+     * @param token a token
+     * @return obtained next token
+     * @throws InputMismatchException if there's no token satisfying token
+     * @throws NoSuchElementException if source is closed or hit end of stream
+     */
+    public String rawNext(CharClassToken token) {
+        return take(awaitToken(token));
+    }
+
     /**
      * Closes underlying source of characters, if is implementing {@link AutoCloseable}.
      *
@@ -166,7 +304,50 @@ public class StreamTokenizer implements AutoCloseable {
         }
     }
 
-    private String getTokenFromBuffer(Pattern pattern) {
+    private void skip() {
+        if (skipPattern != null) {
+            consume(awaitToken(skipPattern));
+        }
+    }
+
+    private String take(int end) {
+        String token = buffer.subSequence(0, end).toString();
+        consume(end);
+        return token;
+    }
+
+    private int awaitToken(Object token) {
+        while (true) {
+            int end = getTokenFromBuffer(token);
+            if (!closed && end >= 0) {
+                return end;
+            }
+            if (needInput && !closed) {
+                readSome();
+            } else {
+                throwFor();
+            }
+        }
+    }
+
+    private int getTokenFromBuffer(Object token) {
+        if (token instanceof TokenSet) {
+            return getTokenFromBuffer((TokenSet) token);
+        } else if (token instanceof CharClassToken) {
+            return getTokenFromBuffer((CharClassToken) token);
+        }
+        return getTokenFromBuffer((Pattern) token);
+    }
+
+    private int getTokenFromBuffer(Pattern pattern) {
+        CharClassToken token = tokenCache.computeIfAbsent(pattern, CharClassToken::compile);
+        if (token != CharClassToken.NONE) {
+            int end = getTokenFromBuffer(token);
+            if (end != CharClassToken.UNSUPPORTED) {
+                return end;
+            }
+        }
+
         initBuffer();
 
         Matcher matcher = pattern.matcher(buffer);
@@ -174,19 +355,85 @@ public class StreamTokenizer implements AutoCloseable {
         if (matcher.lookingAt()) {
             if (matcher.hitEnd() && !matcher.requireEnd() && buffer.position() > 0) {
                 needInput = true;
-                return null;
+                return -1;
             }
-            String match = matcher.group();
-            buffer.position(buffer.position() + matcher.end());
-            position += matcher.end();
-            return match;
+            return matcher.end();
         }
 
         if (matcher.hitEnd() && buffer.position() > 0) {
             needInput = true;
         }
 
-        return null;
+        return -1;
+    }
+
+    private int getTokenFromBuffer(CharClassToken token) {
+        initBuffer();
+
+        int end = token.match(buffer);
+
+        if (end != CharClassToken.UNSUPPORTED && token.hitEnd(buffer, end) && buffer.position() > 0) {
+            needInput = true;
+            return CharClassToken.MISMATCH;
+        }
+
+        return end;
+    }
+
+    private int getTokenFromBuffer(TokenSet tokens) {
+        initBuffer();
+
+        int start = buffer.position();
+        int remaining = buffer.remaining();
+        int state = TokenSet.START;
+        int id = tokens.accept(state);
+        int end = id >= 0 ? 0 : -1;
+        int length = 0;
+        while (length < remaining && tokens.continues(state)) {
+            state = tokens.step(state, buffer.get(start + length));
+            if (state == TokenSet.DEAD) {
+                break;
+            }
+            length++;
+            if (tokens.accept(state) >= 0) {
+                id = tokens.accept(state);
+                end = length;
+            }
+        }
+
+        // a longer token may continue after input that is not read yet
+        if (length == remaining && state != TokenSet.DEAD && tokens.continues(state) && start > 0) {
+            needInput = true;
+            return -1;
+        }
+
+        lastTokenId = id;
+        return end;
+    }
+
+    private boolean isLiteralInBuffer(CharSequence literal) {
+        initBuffer();
+
+        int length = literal.length();
+        int start = buffer.position();
+        int available = Math.min(length, buffer.remaining());
+        for (int i = 0; i < available; i++) {
+            if (buffer.get(start + i) != literal.charAt(i)) {
+                return false;
+            }
+        }
+
+        // literal may continue after input that is not read yet
+        if (available < length && start > 0) {
+            needInput = true;
+        }
+
+        return available == length;
+    }
+
+    private void consume(int count) {
+        buffer.position(buffer.position() + count);
+        position += count;
     }
 
     private void readSome() {
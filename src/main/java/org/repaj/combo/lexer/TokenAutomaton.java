@@ -0,0 +1,646 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.repaj.combo.lexer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A deterministic automaton that recognizes many tokens at once. Regexes of tokens are parsed
+ * into trees, the trees are built into one nondeterministic automaton, and the automaton is
+ * determinized by subset construction. Characters are grouped into classes that no regex
+ * distinguishes, so transitions are indexed by class rather than by character.
+ * <p>
+ * Regexes are a subset of {@link java.util.regex.Pattern} syntax: characters and escapes,
+ * {@code .}, character classes with ranges, {@code \d \s \w} and their complements,
+ * groups {@code (...)} and {@code (?:...)}, alternation, and greedy quantifiers
+ * {@code * + ? {n} {n,} {n,m}}. Anchors, lookarounds, back references and flags are not supported.
+ *
+ * @author Konrad Kleczkowski
+ * @see TokenSet
+ */
+final class TokenAutomaton {
+    static final int DEAD = -1;
+
+    private static final int MAX_CHAR = Character.MAX_VALUE;
+    private static final int MAX_REPETITION = 1000;
+    private static final int MAX_STATES = 1 << 16;
+
+    private static final int[] DIGIT = {'0', '9'};
+    private static final int[] SPACE = {'\t', '\r', ' ', ' '};
+    private static final int[] WORD = {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+    private static final int[] DOT = complement(new int[]{'\n', '\n', '\r', '\r', '\u0085', '\u0085', '\u2028', '\u2029'});
+
+    final int[] bounds;
+    final int[] transitions;
+    final int[] accepts;
+    final boolean[] continues;
+
+    private final List<State> states = new ArrayList<>();
+
+    private TokenAutomaton(List<Node> tokens) {
+        List<State> starts = new ArrayList<>();
+        for (int id = 0; id < tokens.size(); id++) {
+            Fragment fragment = tokens.get(id).build(this);
+            fragment.end.accept = id;
+            starts.add(fragment.start);
+        }
+        this.bounds = classBounds();
+        int classes = bounds.length;
+
+        Map<BitSet, Integer> ids = new HashMap<>();
+        List<BitSet> subsets = new ArrayList<>();
+        BitSet initial = new BitSet();
+        for (State start : starts) {
+            initial.set(start.index);
+        }
+        initial = closure(initial);
+        ids.put(initial, 0);
+        subsets.add(initial);
+
+        int[] transitions = new int[classes * 16];
+        for (int current = 0; current < subsets.size(); current++) {
+            BitSet subset = subsets.get(current);
+            if (transitions.length < (current + 1) * classes) {
+                transitions = Arrays.copyOf(transitions, transitions.length * 2);
+            }
+            for (int c = 0; c < classes; c++) {
+                BitSet moved = new BitSet();
+                for (int i = subset.nextSetBit(0); i >= 0; i = subset.nextSetBit(i + 1)) {
+                    State state = states.get(i);
+                    if (state.chars != null && contains(state.chars, bounds[c])) {
+                        moved.set(state.next.index);
+                    }
+                }
+                if (moved.isEmpty()) {
+                    transitions[current * classes + c] = DEAD;
+                    continue;
+                }
+                BitSet target = closure(moved);
+                Integer id = ids.get(target);
+                if (id == null) {
+                    if (subsets.size() == MAX_STATES) {
+                        throw new IllegalArgumentException("tokens need more than " + MAX_STATES + " states");
+                    }
+                    id = subsets.size();
+                    ids.put(target, id);
+                    subsets.add(target);
+                }
+                transitions[current * classes + c] = id;
+            }
+        }
+        this.transitions = Arrays.copyOf(transitions, subsets.size() * classes);
+
+        this.accepts = new int[subsets.size()];
+        this.continues = new boolean[subsets.size()];
+        for (int current = 0; current < subsets.size(); current++) {
+            BitSet subset = subsets.get(current);
+            // the token added first wins among tokens of the same length
+            int accept = Integer.MAX_VALUE;
+            for (int i = subset.nextSetBit(0); i >= 0; i = subset.nextSetBit(i + 1)) {
+                State state = states.get(i);
+                if (state.accept >= 0) {
+                    accept = Math.min(accept, state.accept);
+                }
+                continues[current] |= state.chars != null;
+            }
+            accepts[current] = accept == Integer.MAX_VALUE ? -1 : accept;
+        }
+    }
+
+    /**
+     * Builds automaton of tokens. Identifier of token is its index in {@code tokens}.
+     *
+     * @param tokens parsed regexes of tokens
+     * @return newly created automaton
+     * @throws IllegalArgumentException if either automaton would have more than {@value #MAX_STATES} states
+     */
+    static TokenAutomaton of(List<Node> tokens) {
+        return new TokenAutomaton(tokens);
+    }
+
+    /**
+     * Parses {@code regex} of a token.
+     *
+     * @param regex a regex
+     * @return parsed regex
+     * @throws PatternSyntaxException if regex is malformed, uses unsupported syntax
+     *                                or matches the empty string
+     */
+    static Node parse(String regex) {
+        Reader reader = new Reader(regex);
+        Node node = reader.alternation();
+        if (reader.index < regex.length()) {
+            throw reader.error("Unmatched closing ')'");
+        }
+        // a token of no characters would not move the tokenizer
+        if (node.nullable()) {
+            throw new PatternSyntaxException("Token matches the empty string", regex, -1);
+        }
+        return node;
+    }
+
+    private int[] classBounds() {
+        TreeSet<Integer> points = new TreeSet<>();
+        points.add(0);
+        for (State state : states) {
+            if (state.chars != null) {
+                for (int i = 0; i < state.chars.length; i += 2) {
+                    points.add(state.chars[i]);
+                    if (state.chars[i + 1] < MAX_CHAR) {
+                        points.add(state.chars[i + 1] + 1);
+                    }
+                }
+            }
+        }
+        return points.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private BitSet closure(BitSet subset) {
+        BitSet closure = (BitSet) subset.clone();
+        Deque<State> pending = new ArrayDeque<>();
+        for (int i = subset.nextSetBit(0); i >= 0; i = subset.nextSetBit(i + 1)) {
+            pending.push(states.get(i));
+        }
+        while (!pending.isEmpty()) {
+            for (State state : pending.pop().epsilons) {
+                if (!closure.get(state.index)) {
+                    closure.set(state.index);
+                    pending.push(state);
+                }
+            }
+        }
+        return closure;
+    }
+
+    private State newState() {
+        if (states.size() == MAX_STATES) {
+            throw new IllegalArgumentException("tokens need more than " + MAX_STATES + " states");
+        }
+        State state = new State(states.size());
+        states.add(state);
+        return state;
+    }
+
+    private Fragment empty() {
+        State state = newState();
+        return new Fragment(state, state);
+    }
+
+    private static boolean contains(int[] chars, int c) {
+        for (int i = 0; i < chars.length && chars[i] <= c; i += 2) {
+            if (c <= chars[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] union(int[] left, int[] right) {
+        int[][] ranges = new int[(left.length + right.length) / 2][];
+        for (int i = 0; i < left.length; i += 2) {
+            ranges[i / 2] = new int[]{left[i], left[i + 1]};
+        }
+        for (int i = 0; i < right.length; i += 2) {
+            ranges[(left.length + i) / 2] = new int[]{right[i], right[i + 1]};
+        }
+        Arrays.sort(ranges, (a, b) -> Integer.compare(a[0], b[0]));
+        int[] union = new int[left.length + right.length];
+        int length = 0;
+        for (int[] range : ranges) {
+            if (length > 0 && range[0] <= union[length - 1] + 1) {
+                union[length - 1] = Math.max(union[length - 1], range[1]);
+            } else {
+                union[length++] = range[0];
+                union[length++] = range[1];
+            }
+        }
+        return Arrays.copyOf(union, length);
+    }
+
+    private static int[] complement(int[] chars) {
+        int[] complement = new int[chars.length + 2];
+        int length = 0;
+        int next = 0;
+        for (int i = 0; i < chars.length; i += 2) {
+            if (chars[i] > next) {
+                complement[length++] = next;
+                complement[length++] = chars[i] - 1;
+            }
+            next = chars[i + 1] + 1;
+        }
+        if (next <= MAX_CHAR) {
+            complement[length++] = next;
+            complement[length++] = MAX_CHAR;
+        }
+        return Arrays.copyOf(complement, length);
+    }
+
+    /**
+     * A state of nondeterministic automaton, with at most one transition on characters.
+     */
+    private static final class State {
+        final int index;
+        final List<State> epsilons = new ArrayList<>(2);
+        int[] chars;
+        State next;
+        int accept = -1;
+
+        State(int index) {
+            this.index = index;
+        }
+    }
+
+    /**
+     * A part of nondeterministic automaton with one entry and one exit.
+     */
+    private static final class Fragment {
+        final State start;
+        final State end;
+
+        Fragment(State start, State end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        Fragment then(Fragment next) {
+            end.epsilons.add(next.start);
+            return new Fragment(start, next.end);
+        }
+    }
+
+    /**
+     * A node of parsed regex. Nodes can be built many times, e.g. by counted repetition.
+     */
+    abstract static class Node {
+        abstract Fragment build(TokenAutomaton automaton);
+
+        abstract boolean nullable();
+    }
+
+    private static final class Chars extends Node {
+        private final int[] chars;
+
+        Chars(int[] chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        Fragment build(TokenAutomaton automaton) {
+            State start = automaton.newState();
+            start.chars = chars;
+            start.next = automaton.newState();
+            return new Fragment(start, start.next);
+        }
+
+        @Override
+        boolean nullable() {
+            return false;
+        }
+    }
+
+    private static final class Concatenation extends Node {
+        private final List<Node> items;
+
+        Concatenation(List<Node> items) {
+            this.items = items;
+        }
+
+        @Override
+        Fragment build(TokenAutomaton automaton) {
+            Fragment fragment = automaton.empty();
+            for (Node item : items) {
+                fragment = fragment.then(item.build(automaton));
+            }
+            return fragment;
+        }
+
+        @Override
+        boolean nullable() {
+            return items.stream().allMatch(Node::nullable);
+        }
+    }
+
+    private static final class Alternation extends Node {
+        private final List<Node> alternatives;
+
+        Alternation(List<Node> alternatives) {
+            this.alternatives = alternatives;
+        }
+
+        @Override
+        Fragment build(TokenAutomaton automaton) {
+            State start = automaton.newState();
+            State end = automaton.newState();
+            for (Node alternative : alternatives) {
+                Fragment fragment = alternative.build(automaton);
+                start.epsilons.add(fragment.start);
+                fragment.end.epsilons.add(end);
+            }
+            return new Fragment(start, end);
+        }
+
+        @Override
+        boolean nullable() {
+            return alternatives.stream().anyMatch(Node::nullable);
+        }
+    }
+
+    private static final class Repetition extends Node {
+        private static final int UNBOUNDED = -1;
+
+        private final Node item;
+        private final int min;
+        private final int max;
+
+        Repetition(Node item, int min, int max) {
+            this.item = item;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        Fragment build(TokenAutomaton automaton) {
+            Fragment fragment = automaton.empty();
+            for (int i = 0; i < min; i++) {
+                fragment = fragment.then(item.build(automaton));
+            }
+            if (max == UNBOUNDED) {
+                Fragment loop = item.build(automaton);
+                State entry = automaton.newState();
+                State exit = automaton.newState();
+                entry.epsilons.add(loop.start);
+                entry.epsilons.add(exit);
+                loop.end.epsilons.add(entry);
+                return fragment.then(new Fragment(entry, exit));
+            }
+            for (int i = min; i < max; i++) {
+                Fragment optional = item.build(automaton);
+                State exit = automaton.newState();
+                optional.start.epsilons.add(exit);
+                optional.end.epsilons.add(exit);
+                fragment = fragment.then(new Fragment(optional.start, exit));
+            }
+            return fragment;
+        }
+
+        @Override
+        boolean nullable() {
+            return min == 0 || item.nullable();
+        }
+    }
+
+    /**
+     * A recursive descent parser of regex.
+     */
+    private static final class Reader {
+        private final String regex;
+        private int index;
+
+        Reader(String regex) {
+            this.regex = regex;
+        }
+
+        Node alternation() {
+            List<Node> alternatives = new ArrayList<>();
+            alternatives.add(concatenation());
+            while (index < regex.length() && regex.charAt(index) == '|') {
+                index++;
+                alternatives.add(concatenation());
+            }
+            return alternatives.size() == 1 ? alternatives.get(0) : new Alternation(alternatives);
+        }
+
+        private Node concatenation() {
+            List<Node> items = new ArrayList<>();
+            while (index < regex.length() && regex.charAt(index) != '|' && regex.charAt(index) != ')') {
+                items.add(repetition());
+            }
+            return items.size() == 1 ? items.get(0) : new Concatenation(items);
+        }
+
+        private Node repetition() {
+            Node node = atom();
+            while (index < regex.length()) {
+                char c = regex.charAt(index);
+                if (c == '*') {
+                    node = new Repetition(node, 0, Repetition.UNBOUNDED);
+                } else if (c == '+') {
+                    node = new Repetition(node, 1, Repetition.UNBOUNDED);
+                } else if (c == '?') {
+                    node = new Repetition(node, 0, 1);
+                } else if (c == '{') {
+                    node = counted(node);
+                    continue;
+                } else {
+                    break;
+                }
+                index++;
+                if (index < regex.length() && (regex.charAt(index) == '?' || regex.charAt(index) == '+')) {
+                    throw error("Lazy and possessive quantifiers are not supported");
+                }
+            }
+            return node;
+        }
+
+        private Node counted(Node node) {
+            int start = index++;
+            int min = number();
+            int max = min;
+            if (index < regex.length() && regex.charAt(index) == ',') {
+                index++;
+                max = index < regex.length() && regex.charAt(index) == '}' ? Repetition.UNBOUNDED : number();
+            }
+            if (index >= regex.length() || regex.charAt(index) != '}') {
+                index = start;
+                throw error("Unclosed counted closure");
+            }
+            index++;
+            if (max != Repetition.UNBOUNDED && max < min) {
+                index = start;
+                throw error("Illegal repetition range");
+            }
+            return new Repetition(node, min, max);
+        }
+
+        private int number() {
+            int start = index;
+            while (index < regex.length() && Character.isDigit(regex.charAt(index))) {
+                index++;
+            }
+            if (index == start || index - start > 4) {
+                throw error("Illegal repetition");
+            }
+            int number = Integer.parseInt(regex.substring(start, index));
+            if (number > MAX_REPETITION) {
+                throw error("Repetition is too large");
+            }
+            return number;
+        }
+
+        private Node atom() {
+            char c = regex.charAt(index++);
+            switch (c) {
+                case '(':
+                    if (regex.startsWith("?:", index)) {
+                        index += 2;
+                    } else if (index < regex.length() && regex.charAt(index) == '?') {
+                        throw error("Special groups are not supported");
+                    }
+                    Node group = alternation();
+                    if (index >= regex.length()) {
+                        throw error("Unclosed group");
+                    }
+                    index++;
+                    return group;
+                case '[':
+                    return new Chars(charClass());
+                case '.':
+                    return new Chars(DOT);
+                case '\\':
+                    return new Chars(escape());
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                    index--;
+                    throw error("Dangling meta character '" + c + "'");
+                case '^':
+                case '$':
+                    index--;
+                    throw error("Anchors are not supported");
+                default:
+                    return new Chars(new int[]{c, c});
+            }
+        }
+
+        private int[] charClass() {
+            boolean negated = index < regex.length() && regex.charAt(index) == '^';
+            if (negated) {
+                index++;
+            }
+            int[] chars = {};
+            boolean first = true;
+            while (true) {
+                if (index >= regex.length()) {
+                    throw error("Unclosed character class");
+                }
+                char c = regex.charAt(index);
+                if (c == ']' && !first) {
+                    index++;
+                    break;
+                }
+                if (c == '[' || regex.startsWith("&&", index)) {
+                    throw error("Nested character classes are not supported");
+                }
+                int[] item = classItem();
+                if (item.length == 2 && item[0] == item[1] && regex.startsWith("-", index)
+                        && index + 1 < regex.length() && regex.charAt(index + 1) != ']') {
+                    index++;
+                    int[] last = classItem();
+                    if (last.length != 2 || last[0] != last[1] || last[0] < item[0]) {
+                        throw error("Illegal character range");
+                    }
+                    item = new int[]{item[0], last[0]};
+                }
+                chars = union(chars, item);
+                first = false;
+            }
+            return negated ? complement(chars) : chars;
+        }
+
+        private int[] classItem() {
+            char c = regex.charAt(index++);
+            return c == '\\' ? escape() : new int[]{c, c};
+        }
+
+        private int[] escape() {
+            if (index >= regex.length()) {
+                throw error("Unexpected internal error");
+            }
+            char c = regex.charAt(index++);
+            switch (c) {
+                case 'd':
+                    return DIGIT;
+                case 'D':
+                    return complement(DIGIT);
+                case 's':
+                    return SPACE;
+                case 'S':
+                    return complement(SPACE);
+                case 'w':
+                    return WORD;
+                case 'W':
+                    return complement(WORD);
+                case 't':
+                    return new int[]{'\t', '\t'};
+                case 'n':
+                    return new int[]{'\n', '\n'};
+                case 'r':
+                    return new int[]{'\r', '\r'};
+                case 'f':
+                    return new int[]{'\f', '\f'};
+                case 'a':
+                    return new int[]{'\u0007', '\u0007'};
+                case 'e':
+                    return new int[]{'\u001B', '\u001B'};
+                case 'x':
+                    return hex(2);
+                case 'u':
+                    return hex(4);
+                default:
+                    if (Character.isLetterOrDigit(c)) {
+                        index--;
+                        throw error("Unsupported escape sequence");
+                    }
+                    return new int[]{c, c};
+            }
+        }
+
+        private int[] hex(int digits) {
+            if (index + digits > regex.length()) {
+                throw error("Illegal hexadecimal escape sequence");
+            }
+            int c;
+            try {
+                c = Integer.parseInt(regex.substring(index, index + digits), 16);
+            } catch (NumberFormatException e) {
+                throw error("Illegal hexadecimal escape sequence");
+            }
+            index += digits;
+            return new int[]{c, c};
+        }
+
+        private PatternSyntaxException error(String description) {
+            return new PatternSyntaxException(description, regex, index);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.repaj.combo.lexer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A set of named tokens compiled into one deterministic automaton, so
+ * {@link StreamTokenizer#next(TokenSet)} finds which token is next in a single pass
+ * over characters, instead of matching each token in turn.
+ * <p>
+ * The longest token wins; among tokens of the same length, the one added first wins.
+ * Tokens are identified by their index in order of addition. Regexes of tokens are
+ * a subset of {@link java.util.regex.Pattern} syntax: characters and escapes, {@code .},
+ * character classes with ranges, {@code \d \s \w} and their complements, groups,
+ * alternation and greedy quantifiers. Anchors, lookarounds, back references
+ * and flags are not supported.
+ *
+ * @author Konrad Kleczkowski
+ */
+public final class TokenSet {
+    static final int START = 0;
+    static final int DEAD = TokenAutomaton.DEAD;
+
+    private final List<String> names;
+    private final Map<String, Integer> ids;
+    private final int[] bounds;
+    private final int[] asciiClasses = new int[128];
+    private final int classes;
+    private final int[] transitions;
+    private final int[] accepts;
+    private final boolean[] continues;
+
+    private TokenSet(List<String> names, Map<String, Integer> ids, TokenAutomaton automaton) {
+        this.names = names;
+        this.ids = ids;
+        this.bounds = automaton.bounds;
+        this.classes = bounds.length;
+        this.transitions = automaton.transitions;
+        this.accepts = automaton.accepts;
+        this.continues = automaton.continues;
+        for (char c = 0; c < asciiClasses.length; c++) {
+            asciiClasses[c] = classOf(c);
+        }
+    }
+
+    /**
+     * Creates builder of token set.
+     *
+     * @return newly created builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Gets number of tokens.
+     *
+     * @return number of tokens
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Gets name of token.
+     *
+     * @param id an identifier of token
+     * @return a name
+     * @throws IndexOutOfBoundsException if there's no token identified by {@code id}
+     */
+    public String getName(int id) {
+        return names.get(id);
+    }
+
+    /**
+     * Gets identifier of token.
+     *
+     * @param name a name of token
+     * @return an identifier, or {@code -1} if there's no token named {@code name}
+     */
+    public int getId(String name) {
+        return ids.getOrDefault(name, -1);
+    }
+
+    /**
+     * Gets state after {@code c} in {@code state}.
+     *
+     * @param state a state
+     * @param c     a character
+     * @return next state, or {@link #DEAD} if no token continues with {@code c}
+     */
+    int step(int state, char c) {
+        return transitions[state * classes + (c < 128 ? asciiClasses[c] : classOf(c))];
+    }
+
+    /**
+     * Gets token that ends in {@code state}.
+     *
+     * @param state a state
+     * @return an identifier of token, or {@code -1} if no token ends in {@code state}
+     */
+    int accept(int state) {
+        return accepts[state];
+    }
+
+    /**
+     * Tests whether any token may continue after {@code state}.
+     *
+     * @param state a state
+     * @return {@code true} if there are transitions from {@code state}
+     */
+    boolean continues(int state) {
+        return continues[state];
+    }
+
+    private int classOf(char c) {
+        int index = Arrays.binarySearch(bounds, c);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * A builder of {@link TokenSet}.
+     */
+    public static final class Builder {
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<TokenAutomaton.Node> tokens = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds token. Its identifier is number of tokens added before.
+         *
+         * @param name  a name of token
+         * @param regex a regex of token
+         * @return this builder
+         * @throws IllegalArgumentException if token named {@code name} is already added
+         * @throws PatternSyntaxException   if {@code regex} is malformed, uses unsupported syntax
+         *                                  or matches the empty string
+         * @throws NullPointerException     if any argument is {@code null}
+         */
+        public Builder add(String name, String regex) {
+            Objects.requireNonNull(name);
+            if (ids.containsKey(name)) {
+                throw new IllegalArgumentException();
+            }
+            tokens.add(TokenAutomaton.parse(regex));
+            ids.put(name, names.size());
+            names.add(name);
+            return this;
+        }
+
+        /**
+         * Compiles added tokens into token set.
+         *
+         * @return newly created token set
+         * @throws IllegalArgumentException if tokens are too complex to be recognized by one automaton
+         */
+        public TokenSet build() {
+            return new TokenSet(Collections.unmodifiableList(new ArrayList<>(names)), new HashMap<>(ids),
+                    TokenAutomaton.of(tokens));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.InputMismatchException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Konrad Kleczkowski
+ */
+@DisplayName("A char parser")
+class CharParsersTest {
+    CharInput input;
+
+    @Nested
+    @DisplayName("when input has tokens")
+    class WhenHasTokens {
+        @BeforeEach
+        void setUp() {
+            input = CharInput.of("let x = -2147483648;");
+        }
+
+        @Test
+        @DisplayName("should advance without copying")
+        void shouldAdvance() {
+            Parser.Result<String, CharInput> result = CharParsers.literal("let").parse(input).getUnchecked();
+            assertEquals("let", result.getOutput());
+            assertEquals(3, result.getInput().getOffset());
+            assertSame(input.getSequence(), result.getInput().getSequence());
+        }
+
+        @Test
+        @DisplayName("should parse sequence of tokens")
+        void shouldParseSequence() {
+            Parser<Integer, CharInput> parser = CharParsers.literal("let")
+                    .flatMap(l -> CharParsers.regex("\\s*(\\w+)\\s*=\\s*"))
+                    .flatMap(s -> CharParsers.integer().boxed())
+                    .flatMap(value -> CharParsers.character(';').map(c -> value));
+            Parser.Result<Integer, CharInput> result = parser.parse(input).getUnchecked();
+            assertEquals(Integer.MIN_VALUE, (int) result.getOutput());
+            assertFalse(result.getInput().hasRemaining());
+        }
+
+        @Test
+        @DisplayName("should fail when token is mismatched")
+        void shouldFail() {
+            assertFalse(CharParsers.literal("var").parse(input).isSuccess());
+            assertFalse(CharParsers.integer().parse(input).isSuccess());
+        }
+
+        @Test
+        @DisplayName("should describe expected token when failure is inspected")
+        void shouldDescribeFailure() {
+            Throwable cause = assertThrows(InputMismatchException.class,
+                    () -> CharParsers.literal("var").parse(input).get());
+            assertEquals("expected \"var\" at offset 0", cause.getMessage());
+        }
+    }
+
+    @Nested
+    @DisplayName("when integer is too big")
+    class WhenIntegerTooBig {
+        @BeforeEach
+        void setUp() {
+            input = CharInput.of("2147483648");
+        }
+
+        @Test
+        @DisplayName("should fail to parse int, but parse long")
+        void shouldFailToParseInt() {
+            assertFalse(CharParsers.integer().parse(input).isSuccess());
+            assertEquals(2147483648L, CharParsers.longInteger().parse(input).getUnchecked().getOutput());
+        }
+
+        @Test
+        @DisplayName("should report integer in range as expected")
+        void shouldReportRange() {
+            Throwable cause = assertThrows(InputMismatchException.class,
+                    () -> CharParsers.integer().parse(input).get());
+            assertEquals("expected integer in range at offset 0", cause.getMessage());
+            assertEquals(Long.MIN_VALUE, CharParsers.longInteger().parse(CharInput.of("-9223372036854775808"))
+                    .getUnchecked().getOutput());
+            assertFalse(CharParsers.longInteger().parse(CharInput.of("9223372036854775808")).isSuccess());
+        }
+    }
+
+    @Nested
+    @DisplayName("when inputs are compared")
+    class WhenCompared {
+        @BeforeEach
+        void setUp() {
+            input = CharInput.of("abc");
+        }
+
+        @Test
+        @DisplayName("should be equal at the same offset")
+        void shouldBeEqual() {
+            assertEquals(input.advance(2), input.advance(1).advance(1));
+            assertEquals(input.advance(2).hashCode(), input.advance(1).advance(1).hashCode());
+            assertNotEquals(input.advance(1), CharInput.of(new StringBuilder("abc")).advance(1));
+        }
+    }
+
+    @Nested
+    @DisplayName("when alternatives fail at different offsets")
+    class WhenAlternativesFail {
+        @BeforeEach
+        void setUp() {
+            input = CharInput.of("let x = ;");
+        }
+
+        @Test
+        @DisplayName("should report the furthest failure")
+        void shouldReportFurthestFailure() {
+            Parser<String, CharInput> assignment = CharParsers.regex("let\\s+\\w+\\s*=\\s*")
+                    .flatMap(s -> CharParsers.integer().mapToObj(String::valueOf)
+                            .orElse(() -> CharParsers.literal("true")));
+            Parser<String, CharInput> parser = assignment.orElse(() -> CharParsers.literal("var"));
+            assertFalse(parser.parse(input).isSuccess());
+            FailureReport report = input.getFurthestFailure().get();
+            assertEquals(8, report.getOffset());
+            assertEquals(new HashSet<>(Arrays.asList("integer", "\"true\"")), report.getExpected());
+        }
+    }
+}
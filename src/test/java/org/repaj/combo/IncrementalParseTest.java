@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.repaj.combo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Konrad Kleczkowski
+ */
+@DisplayName("An incremental parse")
+class IncrementalParseTest {
+    @Nested
+    @DisplayName("when text is edited")
+    class WhenEdited {
+        PieceTable text;
+
+        @BeforeEach
+        void setUp() {
+            text = PieceTable.of("hello world");
+        }
+
+        @Test
+        @DisplayName("should replace characters")
+        void shouldReplace() {
+            PieceTable edited = text.edit(6, 5, "there").edit(5, 0, ",").edit(0, 0, ">");
+            assertEquals(">hello, there", edited.toString());
+            assertEquals("o, t", edited.subSequence(5, 9).toString());
+            assertEquals('t', edited.charAt(8));
+            assertEquals("hello world", text.toString());
+            assertEquals("hello", text.edit(5, 6, "").toString());
+            assertThrows(IndexOutOfBoundsException.class, () -> text.edit(8, 4, ""));
+        }
+    }
+
+    @Nested
+    @DisplayName("when parsed again")
+    class WhenParsedAgain {
+        int parsed;
+        IncrementalParse<String> parse;
+
+        @BeforeEach
+        void setUp() {
+            Parser<String, CharInput> item = CharParsers.regex("[a-z]+;").map(s -> {
+                parsed++;
+                return s;
+            }).memoize();
+            parse = IncrementalParse.of(RepetitionParsers.zeroOrMore(item, Collectors.joining("|")), "aa;bb;cc;dd;");
+            parsed = 0;
+        }
+
+        @Test
+        @DisplayName("should reuse results the edit does not affect")
+        void shouldReuseResults() {
+            IncrementalParse<String> edited = parse.edit(3, 2, "xyz");
+            assertEquals("aa;|xyz;|cc;|dd;", edited.getResult().getUnchecked().getOutput());
+            assertEquals(1, parsed);
+            assertEquals(13, edited.getResult().getUnchecked().getInput().getOffset());
+            assertEquals("aa;|bb;|cc;|dd;", parse.getResult().getUnchecked().getOutput());
+        }
+
+        @Test
+        @DisplayName("should parse again results that examined the end")
+        void shouldParseEndAgain() {
+            IncrementalParse<String> edited = parse.edit(11, 1, "e;");
+            assertEquals("aa;|bb;|cc;|dde;", edited.getResult().getUnchecked().getOutput());
+            edited = edited.edit(13, 0, "ff;");
+            assertEquals("aa;|bb;|cc;|dde;|ff;", edited.getResult().getUnchecked().getOutput());
+        }
+    }
+
+    @Nested
+    @DisplayName("when input is pushed")
+    class WhenPushed {
+        PushParser<String> parser;
+
+        @BeforeEach
+        void setUp() {
+            Parser<String, CharInput> message = CharParsers.regex("[a-z\u0105]+").then(CharParsers.literal(";"), (m, s) -> m);
+            parser = PushParser.of(message);
+        }
+
+        @Test
+        @DisplayName("should need more input until result is known")
+        void shouldNeedMoreInput() {
+            assertEquals(PushParser.Status.NEED_INPUT, parser.feed(CharBuffer.wrap("hel")));
+            assertThrows(IllegalStateException.class, () -> parser.getResult());
+            assertEquals(PushParser.Status.NEED_INPUT, parser.feed(CharBuffer.wrap("lo")));
+            assertEquals(PushParser.Status.COMPLETE, parser.feed(CharBuffer.wrap(";wor")));
+            assertEquals("hello", parser.getResult().getUnchecked().getOutput());
+            assertEquals(PushParser.Status.COMPLETE, parser.feed(CharBuffer.wrap("ld;")));
+            assertEquals(PushParser.Status.COMPLETE, parser.reset());
+            assertEquals("world", parser.getResult().getUnchecked().getOutput());
+            assertEquals(PushParser.Status.NEED_INPUT, parser.reset());
+            assertEquals(PushParser.Status.COMPLETE, parser.end());
+            assertFalse(parser.getResult().isSuccess());
+        }
+
+        @Test
+        @DisplayName("should decode characters split between fragments")
+        void shouldDecodeSplitCharacters() {
+            byte[] bytes = "b\u0105;".getBytes(StandardCharsets.UTF_8);
+            assertEquals(PushParser.Status.NEED_INPUT, parser.feed(ByteBuffer.wrap(bytes, 0, 2)));
+            assertEquals(PushParser.Status.COMPLETE, parser.feed(ByteBuffer.wrap(bytes, 2, bytes.length - 2)));
+            assertEquals("b\u0105", parser.getResult().getUnchecked().getOutput());
+        }
+
+        @Test
+        @DisplayName("should resume instead of parsing fed input again")
+        void shouldResume() {
+            AtomicInteger calls = new AtomicInteger();
+            Parser<String, CharInput> record = input -> {
+                calls.incrementAndGet();
+                return CharParsers.literal("ab;").parse(input);
+            };
+            PushParser<Long> records = PushParser.of(RepetitionParsers.zeroOrMore(record, Collectors.counting()));
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(PushParser.Status.NEED_INPUT, records.feed(CharBuffer.wrap(i % 2 == 0 ? "a" : "b;ab;")));
+            }
+            assertEquals(PushParser.Status.COMPLETE, records.end());
+            assertEquals(1000, (long) records.getResult().getUnchecked().getOutput());
+            assertTrue(calls.get() <= 2 * 1000 + 2);
+        }
+
+        @Test
+        @DisplayName("should complete when mismatch does not depend on the end")
+        void shouldCompleteOnMismatch() {
+            assertEquals(PushParser.Status.COMPLETE, parser.feed(CharBuffer.wrap("ab!")));
+            assertFalse(parser.getResult().isSuccess());
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Konrad Kleczkowski
+ */
+@DisplayName("A parser")
+class ParserTest {
+    static Parser<Character, String> character(char c) {
+        return input -> !input.isEmpty() && input.charAt(0) == c
+                ? Try.success(new Parser.Result<>(c, input.substring(1)))
+                : Try.fail(new NoSuchElementException());
+    }
+
+    @Nested
+    @DisplayName("when memoized")
+    class WhenMemoized {
+        int calls;
+        Parser<Character, String> parser;
+
+        @BeforeEach
+        void setUp() {
+            calls = 0;
+            Parser<Character, String> a = character('a');
+            parser = ((Parser<Character, String>) input -> {
+                calls++;
+                return a.parse(input);
+            }).memoize();
+        }
+
+        @Test
+        @DisplayName("should parse each input once")
+        void shouldParseOnce() {
+            Parser<Character, String> alternatives = parser.flatMap(c -> character('b'))
+                    .orElse(() -> parser.flatMap(c -> character('c')));
+            assertEquals('c', (char) alternatives.parse("ac").getUnchecked().getOutput());
+            assertEquals(1, calls);
+        }
+
+        @Test
+        @DisplayName("should remember failures")
+        void shouldRememberFailures() {
+            assertFalse(parser.orElse(() -> parser).parse("x").toOptional().isPresent());
+            assertEquals(1, calls);
+        }
+
+        @Test
+        @DisplayName("should remember results only for one parse")
+        void shouldForgetAfterParse() {
+            assertTrue(parser.parse("a").isSuccess());
+            assertTrue(parser.parse("a").isSuccess());
+            assertEquals(2, calls);
+        }
+    }
+
+    @Nested
+    @DisplayName("when left-recursive")
+    class WhenLeftRecursive {
+        Parser<Integer, String> parser;
+
+        @BeforeEach
+        void setUp() {
+            Parser<Integer, String> digit = input -> !input.isEmpty() && Character.isDigit(input.charAt(0))
+                    ? Try.success(new Parser.Result<>(input.charAt(0) - '0', input.substring(1)))
+                    : Try.fail(new NoSuchElementException());
+            parser = Parser.leftRecursive(expr -> expr
+                    .flatMap(l -> character('-').flatMap(c -> digit.map(r -> l - r)))
+                    .orElse(() -> digit));
+        }
+
+        @Test
+        @DisplayName("should associate to the left")
+        void shouldAssociateToLeft() {
+            Parser.Result<Integer, String> result = parser.parse("9-3-2x").getUnchecked();
+            assertEquals(4, (int) result.getOutput());
+            assertEquals("x", result.getInput());
+        }
+
+        @Test
+        @DisplayName("should fail when there is no seed")
+        void shouldFail() {
+            assertFalse(parser.parse("-3").toOptional().isPresent());
+        }
+
+        @Test
+        @DisplayName("should grow seeds of each parse on its own")
+        void shouldGrowOnManyThreads() {
+            Parser<Integer, CharInput> number = CharParsers.integer().boxed();
+            Parser<Integer, CharInput> expr = Parser.leftRecursive(e -> e
+                    .then(CharParsers.literal("-").commit().then(number), (l, r) -> l - r)
+                    .orElse(() -> number));
+            assertTrue(IntStream.range(0, 1000).parallel()
+                    .allMatch(i -> expr.parse(CharInput.of(i + "-1-2")).getUnchecked().getOutput() == i - 3));
+            String ones = IntStream.range(0, 10000).mapToObj(i -> "1").collect(Collectors.joining("-"));
+            assertEquals(-9998, (int) expr.parse(CharInput.of(ones)).getUnchecked().getOutput());
+        }
+    }
+
+    @Nested
+    @DisplayName("when sequencing many steps")
+    class WhenDeeplyNested {
+        String text;
+        Parser<Integer, Integer> counter;
+
+        @BeforeEach
+        void setUp() {
+            char[] chars = new char[100000];
+            Arrays.fill(chars, 'a');
+            text = new String(chars);
+            Parser<Character, Integer> a = position -> position < text.length() && text.charAt(position) == 'a'
+                    ? Try.success(new Parser.Result<>('a', position + 1))
+                    : Try.fail(new NoSuchElementException());
+            counter = a.flatMap(c -> counter.map(n -> n + 1)).orElse(() -> Parser.succeed(0));
+        }
+
+        @Test
+        @DisplayName("should not overflow the stack")
+        void shouldNotOverflow() {
+            Parser.Result<Integer, Integer> result = counter.parse(0).getUnchecked();
+            assertEquals(text.length(), (int) result.getOutput());
+            assertEquals(text.length(), (int) result.getInput());
+        }
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.InputMismatchException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Konrad Kleczkowski
+ */
+@DisplayName("A general parser")
+class ParsersTest {
+    @Nested
+    @DisplayName("when choosing among alternatives")
+    class WhenChoosing {
+        int tests;
+        Parser<String, CharInput> parser;
+
+        @BeforeEach
+        void setUp() {
+            Parser<String, CharInput> digits = CharParsers.character(c -> {
+                tests++;
+                return Character.isDigit(c);
+            }).map(String::valueOf);
+            parser = Parsers.choice(
+                    CharParsers.literal("if").flatMap(s -> CharParsers.literal("(")),
+                    CharParsers.literal("while"),
+                    digits,
+                    CharParsers.regex("[a-z]+"));
+            tests = 0;
+        }
+
+        @Test
+        @DisplayName("should return the first alternative that succeeds")
+        void shouldReturnFirstSuccess() {
+            assertEquals("while", parser.parse(CharInput.of("while")).getUnchecked().getOutput());
+            assertEquals("7", parser.parse(CharInput.of("7")).getUnchecked().getOutput());
+            assertEquals("iffy", parser.parse(CharInput.of("iffy")).getUnchecked().getOutput());
+        }
+
+        @Test
+        @DisplayName("should not attempt alternatives that cannot start with next character")
+        void shouldSkipAlternatives() {
+            parser.parse(CharInput.of("while"));
+            assertEquals(0, tests);
+        }
+
+        @Test
+        @DisplayName("should report what skipped alternatives expected")
+        void shouldReportSkipped() {
+            CharInput input = CharInput.of("?");
+            assertFalse(parser.parse(input).isSuccess());
+            assertEquals(new HashSet<>(Arrays.asList("\"if\"", "\"while\"", "character", "/[a-z]+/")),
+                    input.getFurthestFailure().get().getExpected());
+        }
+
+        @Test
+        @DisplayName("should not report skipped alternatives after the successful one")
+        void shouldNotReportSkippedAfterSuccess() {
+            Parser<String, CharInput> parser = Parsers.choice(CharParsers.regex("b*"), CharParsers.literal("a"))
+                    .then(CharParsers.literal("z"));
+            CharInput input = CharInput.of("x");
+            assertFalse(parser.parse(input).isSuccess());
+            assertEquals(new HashSet<>(Arrays.asList("\"z\"")), input.getFurthestFailure().get().getExpected());
+        }
+    }
+
+    @Nested
+    @DisplayName("when built of rules")
+    class WhenBuiltOfRules {
+        RuleParser<Integer, CharInput> term;
+
+        @BeforeEach
+        void setUp() {
+            term = Parsers.rule("term");
+            term.define(Parsers.choice(
+                    CharParsers.literal("(").then(term).then(CharParsers.literal(")"), (t, p) -> t + 1),
+                    CharParsers.literal("x").map(x -> 0)));
+        }
+
+        @Test
+        @DisplayName("should parse recursive structure")
+        void shouldParseRecursively() {
+            assertEquals(Integer.valueOf(3), term.parse(CharInput.of("(((x)))")).getUnchecked().getOutput());
+            assertFalse(term.parse(CharInput.of("((x)")).isSuccess());
+        }
+
+        @Test
+        @DisplayName("should expose parsers it is built of")
+        void shouldExposeStructure() {
+            Parser<String, CharInput> open = CharParsers.literal("(");
+            Parser<String, CharInput> close = CharParsers.literal(")");
+            SequenceParser<?, ?, String, CharInput> sequence = (SequenceParser<?, ?, String, CharInput>) open.then(close);
+            assertSame(open, sequence.getLeft());
+            assertSame(close, sequence.getRight());
+            assertEquals("term", term.getName());
+            assertTrue(term.getDefinition() instanceof ChoiceParser);
+        }
+
+        @Test
+        @DisplayName("should fail when rule is undefined")
+        void shouldFailWhenUndefined() {
+            RuleParser<Integer, CharInput> undefined = Parsers.rule("undefined");
+            assertThrows(IllegalStateException.class, () -> undefined.parse(CharInput.of("x")));
+            assertThrows(IllegalStateException.class, () -> term.define(undefined));
+        }
+    }
+
+    @Nested
+    @DisplayName("when optimized")
+    class WhenOptimized {
+        @Test
+        @DisplayName("should fuse chains of maps")
+        void shouldFuseMaps() {
+            Parser<String, CharInput> literal = CharParsers.literal("a");
+            Parser<Integer, CharInput> parser = Parsers.optimize(literal.map(String::length).map(n -> n + 1));
+            assertSame(literal, ((MapParser<?, ?, ?>) parser).getParser());
+            assertEquals(Integer.valueOf(2), parser.parse(CharInput.of("a")).getUnchecked().getOutput());
+        }
+
+        @Test
+        @DisplayName("should flatten chains of alternatives")
+        void shouldFlattenAlternatives() {
+            Parser<String, CharInput> parser = Parsers.optimize(CharParsers.literal("a")
+                    .orElse(() -> CharParsers.literal("b").orElse(() -> CharParsers.literal("c"))));
+            assertEquals(3, ((ChoiceParser<?, ?>) parser).getAlternatives().size());
+            assertEquals("c", parser.parse(CharInput.of("c")).getUnchecked().getOutput());
+            assertFalse(parser.parse(CharInput.of("d")).isSuccess());
+        }
+
+        @Test
+        @DisplayName("should remove succeed from sequences")
+        void shouldRemoveSucceed() {
+            Parser<String, CharInput> literal = CharParsers.literal("a");
+            assertSame(literal, Parsers.optimize(Parser.<Integer, CharInput>succeed(1).then(literal)));
+            Parser<String, CharInput> parser = Parsers.optimize(literal.then(Parser.succeed("b"), String::concat));
+            assertTrue(parser instanceof MapParser);
+            assertEquals("ab", parser.parse(CharInput.of("a")).getUnchecked().getOutput());
+        }
+
+        @Test
+        @DisplayName("should parse common prefix of alternatives once")
+        void shouldFactorCommonPrefix() {
+            int[] tests = new int[1];
+            Parser<Character, CharInput> a = CharParsers.character(c -> {
+                tests[0]++;
+                return c == 'a';
+            });
+            Parser<String, CharInput> parser = Parsers.optimize(
+                    a.then(CharParsers.literal("b"), (x, y) -> x + y)
+                            .orElse(() -> a.then(CharParsers.literal("c"), (x, y) -> y + x))
+                            .orElse(() -> CharParsers.literal("d")));
+            assertEquals(2, ((ChoiceParser<?, ?>) parser).getAlternatives().size());
+            assertEquals("ab", parser.parse(CharInput.of("ab")).getUnchecked().getOutput());
+            tests[0] = 0;
+            assertEquals("ca", parser.parse(CharInput.of("ac")).getUnchecked().getOutput());
+            assertEquals(1, tests[0]);
+            assertEquals("d", parser.parse(CharInput.of("d")).getUnchecked().getOutput());
+            assertFalse(parser.parse(CharInput.of("ad")).isSuccess());
+        }
+
+        @Test
+        @DisplayName("should not factor prefix that cuts across primitive parsers")
+        void shouldNotFactorCutAcrossPrimitives() {
+            Parser<Integer, CharInput> a = CharParsers.literal("a").commit().mapToInt(String::length).boxed();
+            Parser<String, CharInput> parser = Parsers.optimize(
+                    a.then(CharParsers.literal("b"))
+                            .orElse(() -> a.then(CharParsers.literal("c"))));
+            assertEquals("b", parser.parse(CharInput.of("ab")).getUnchecked().getOutput());
+            assertFalse(parser.parse(CharInput.of("ac")).isSuccess());
+        }
+
+        @Test
+        @DisplayName("should keep recursive rules working")
+        void shouldKeepRules() {
+            RuleParser<Integer, CharInput> term = Parsers.rule("term");
+            term.define(CharParsers.literal("(").then(term).then(CharParsers.literal(")"), (t, p) -> t + 1)
+                    .orElse(() -> CharParsers.literal("x").map(x -> 0)));
+            Parser<Integer, CharInput> parser = Parsers.optimize(term);
+            assertNotSame(term, parser);
+            assertEquals(Integer.valueOf(2), parser.parse(CharInput.of("((x))")).getUnchecked().getOutput());
+        }
+    }
+
+    @Nested
+    @DisplayName("when cut")
+    class WhenCut {
+        @Test
+        @DisplayName("should not try other alternatives")
+        void shouldNotTryOtherAlternatives() {
+            Parser<String, CharInput> parser = Parsers.choice(
+                    CharParsers.literal("if").then(Parsers.cut()).then(CharParsers.literal("(")),
+                    CharParsers.regex("[a-z]+"));
+            assertEquals("(", parser.parse(CharInput.of("if(")).getUnchecked().getOutput());
+            assertFalse(parser.parse(CharInput.of("iffy")).isSuccess());
+            assertEquals("while", parser.parse(CharInput.of("while")).getUnchecked().getOutput());
+
+            Parser<String, CharInput> orElse = CharParsers.literal("a").commit().then(CharParsers.literal("b"))
+                    .orElse(() -> CharParsers.literal("ac"));
+            assertFalse(orElse.parse(CharInput.of("ac")).isSuccess());
+        }
+
+        @Test
+        @DisplayName("should be scoped by rule")
+        void shouldBeScopedByRule() {
+            RuleParser<String, CharInput> rule = Parsers.rule("rule");
+            rule.define(Parsers.choice(
+                    CharParsers.literal("a").then(Parsers.cut()).then(CharParsers.literal("b")),
+                    CharParsers.literal("ac")));
+            Parser<String, CharInput> parser = Parsers.choice(rule, CharParsers.literal("ax"));
+            assertFalse(parser.parse(CharInput.of("ac")).isSuccess());
+            assertEquals("ax", parser.parse(CharInput.of("ax")).getUnchecked().getOutput());
+        }
+
+        @Test
+        @DisplayName("should fail repetition when occurrence fails")
+        void shouldFailRepetition() {
+            Parser<String, CharInput> parser = RepetitionParsers.zeroOrMore(
+                    CharParsers.literal("a").commit().then(CharParsers.literal("b")), Collectors.joining());
+            assertEquals("bb", parser.parse(CharInput.of("abab")).getUnchecked().getOutput());
+            assertFalse(parser.parse(CharInput.of("ababa")).isSuccess());
+        }
+
+        @Test
+        @DisplayName("should drop memoized results before it")
+        void shouldDropMemoizedResults() {
+            Map<CharInput, Try<Parser.Result<String, CharInput>>> memo = new HashMap<>();
+            Parser<String, CharInput> parser = RepetitionParsers.zeroOrMore(
+                    CharParsers.literal("a").memoize(memo).commit(), Collectors.joining());
+            assertEquals("aaaa", parser.parse(CharInput.of("aaaa")).getUnchecked().getOutput());
+            assertEquals(1, memo.size());
+        }
+
+        @Test
+        @DisplayName("should reach alternatives across primitive parsers")
+        void shouldCutAcrossPrimitives() {
+            Parser<Integer, CharInput> parser = CharParsers.literal("a").commit().then(CharParsers.literal("b"))
+                    .mapToInt(String::length).map(length -> length + 1).filter(length -> length > 0).boxed()
+                    .orElse(() -> CharParsers.literal("ac").map(String::length));
+            assertEquals(Integer.valueOf(2), parser.parse(CharInput.of("ab")).getUnchecked().getOutput());
+            assertFalse(parser.parse(CharInput.of("ac")).isSuccess());
+        }
+    }
+
+    @Nested
+    @DisplayName("when choosing in parallel")
+    class WhenChoosingInParallel {
+        @Test
+        @DisplayName("should return the first alternative that succeeds")
+        void shouldReturnFirstSuccess() {
+            Parser<String, CharInput> parser = Parsers.parallelChoice(
+                    CharParsers.literal("b"), CharParsers.literal("a"), CharParsers.literal("ab"));
+            CharInput input = CharInput.of("ab");
+            Parser.Result<String, CharInput> result = parser.parse(input).getUnchecked();
+            assertEquals("a", result.getOutput());
+            assertEquals(input.advance(1), result.getInput());
+            assertEquals(new HashSet<>(Arrays.asList("\"b\"")), input.getFurthestFailure().get().getExpected());
+            assertFalse(parser.parse(CharInput.of("c")).isSuccess());
+        }
+
+        @Test
+        @DisplayName("should cancel alternatives after the successful one")
+        void shouldCancelLosers() throws InterruptedException {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch stopped = new CountDownLatch(1);
+            AtomicBoolean cancelled = new AtomicBoolean();
+            Parser<Long, CharInput> endless = RepetitionParsers.between(Parser.succeed(0), 0, Integer.MAX_VALUE - 1,
+                    Collectors.counting());
+            Parser<Long, CharInput> loser = input -> {
+                started.countDown();
+                try {
+                    return endless.parse(input);
+                } catch (CancellationException e) {
+                    cancelled.set(true);
+                    throw e;
+                } finally {
+                    stopped.countDown();
+                }
+            };
+            Parser<Long, CharInput> winner = input -> {
+                try {
+                    started.await();
+                } catch (InterruptedException e) {
+                    return Try.fail(e);
+                }
+                return CharParsers.literal("a").map(a -> -1L).parse(input);
+            };
+            Parser<Long, CharInput> parser = Parsers.parallelChoice(winner, loser);
+            assertEquals(Long.valueOf(-1), parser.parse(CharInput.of("a")).getUnchecked().getOutput());
+            assertTrue(stopped.await(10, TimeUnit.SECONDS));
+            assertTrue(cancelled.get());
+        }
+    }
+
+    @Nested
+    @DisplayName("when streaming records")
+    class WhenStreaming {
+        @Test
+        @DisplayName("should parse records lazily")
+        void shouldParseLazily() {
+            AtomicLong parsed = new AtomicLong();
+            Parser<String, CharInput> record = CharParsers.regex("[a-z]+;").filter(r -> parsed.incrementAndGet() > 0);
+            Iterator<String> records = Parsers.stream(record, CharInput.of("ab;cd;ef;!")).iterator();
+            assertEquals("ab;", records.next());
+            assertEquals(1, parsed.get());
+            assertEquals("cd;", records.next());
+            assertEquals("ef;", records.next());
+            assertFalse(records.hasNext());
+        }
+
+        @Test
+        @DisplayName("should parse separated records in parallel")
+        void shouldParseInParallel() {
+            String text = IntStream.range(0, 100000).mapToObj(String::valueOf).collect(Collectors.joining("\n"));
+            long sum = Parsers.stream(CharParsers.integer().boxed(), CharInput.of(text), c -> c == '\n')
+                    .parallel()
+                    .mapToLong(Integer::longValue)
+                    .sum();
+            assertEquals(4999950000L, sum);
+            assertThrows(InputMismatchException.class, () -> Parsers.stream(CharParsers.integer().boxed(),
+                    CharInput.of("1\n2x\n3"), c -> c == '\n').count());
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2017 Konrad Kleczkowski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.repaj.combo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Konrad Kleczkowski
+ */
+@DisplayName("A repetition parser")
+class RepetitionParsersTest {
+    String text;
+
+    Parser<Character, Integer> character(char c) {
+        return position -> position < text.length() && text.charAt(position) == c
+                ? Try.success(new Parser.Result<>(c, position + 1))
+                : Try.fail(new NoSuchElementException());
+    }
+
+    @Nested
+    @DisplayName("when input has many occurrences")
+    class WhenManyOccurrences {
+        @BeforeEach
+        void setUp() {
+            char[] chars = new char[200000];
+            Arrays.fill(chars, 'a');
+            text = new String(chars) + "b";
+        }
+
+        @Test
+        @DisplayName("should parse all of them")
+        void shouldParseAll() {
+            Parser.Result<Stream<Character>, Integer> result =
+                    RepetitionParsers.oneOrMore(character('a')).parse(0).getUnchecked();
+            assertEquals(200000, result.getOutput().count());
+            assertEquals(200000, (int) result.getInput());
+        }
+    }
+
+    @Nested
+    @DisplayName("when occurrences are separated")
+    class WhenSeparated {
+        @BeforeEach
+        void setUp() {
+            text = "a,a,a,b";
+        }
+
+        @Test
+        @DisplayName("should stop before trailing separator")
+        void shouldStopBeforeSeparator() {
+            Parser.Result<Stream<Character>, Integer> result =
+                    RepetitionParsers.separatedByOneOrMore(character('a'), character(',')).parse(0).getUnchecked();
+            assertEquals("aaa", result.getOutput().map(String::valueOf).collect(Collectors.joining()));
+            assertEquals(5, (int) result.getInput());
+        }
+
+        @Test
+        @DisplayName("should succeed without occurrences")
+        void shouldSucceedWhenEmpty() {
+            Parser.Result<Stream<Character>, Integer> result =
+                    RepetitionParsers.separatedByZeroOrMore(character('b'), character(',')).parse(0).getUnchecked();
+            assertEquals(0, result.getOutput().count());
+            assertEquals(0, (int) result.getInput());
+        }
+    }
+
+    @Nested
+    @DisplayName("when number of occurrences is bounded")
+    class WhenBounded {
+        @BeforeEach
+        void setUp() {
+            text = "aaaaa";
+        }
+
+        @Test
+        @DisplayName("should parse exactly count occurrences")
+        void shouldParseExactly() {
+            assertEquals(3, (int) RepetitionParsers.exactly(character('a'), 3).parse(0).getUnchecked().getInput());
+            assertFalse(RepetitionParsers.exactly(character('a'), 6).parse(0).isSuccess());
+        }
+
+        @Test
+        @DisplayName("should parse less than upper boundary")
+        void shouldParseBetween() {
+            assertEquals(3, (int) RepetitionParsers.between(character('a'), 1, 4).parse(0).getUnchecked().getInput());
+        }
+
+        @Test
+        @DisplayName("should stop after occurrence that consumes nothing")
+        void shouldStopAtEmptyOccurrence() {
+            Parser.Result<Stream<Character>, Integer> result =
+                    RepetitionParsers.zeroOrMore(Parser.<Character, Integer>succeed('x')).parse(0).getUnchecked();
+            assertEquals(1, result.getOutput().count());
+            assertEquals(0, (int) result.getInput());
+        }
+    }
+
+    @Nested
+    @DisplayName("when outputs are collected")
+    class WhenCollected {
+        @BeforeEach
+        void setUp() {
+            text = "a,a,a";
+        }
+
+        @Test
+        @DisplayName("should fold outputs with collector")
+        void shouldFold() {
+            Parser<Integer, Integer> parser = RepetitionParsers.separatedByOneOrMore(
+                    character('a').map(c -> 2), character(','), Collectors.summingInt(Integer::intValue));
+            assertEquals(6, (int) parser.parse(0).getUnchecked().getOutput());
+        }
+
+        @Test
+        @DisplayName("should fold each parse separately")
+        void shouldFoldSeparately() {
+            Parser<String, Integer> parser = RepetitionParsers.zeroOrMore(
+                    character('a').map(String::valueOf), Collectors.joining());
+            assertEquals("a", parser.parse(0).getUnchecked().getOutput());
+            assertEquals("a", parser.parse(2).getUnchecked().getOutput());
+        }
+    }
+
+    @Nested
+    @DisplayName("when outputs are primitive")
+    class WhenPrimitive {
+        IntParser<Integer> digit;
+
+        @BeforeEach
+        void setUp() {
+            text = "1234567890123456789x";
+            digit = position -> position < text.length() && Character.isDigit(text.charAt(position))
+                    ? Try.success(new IntParser.Result<>(text.charAt(position) - '0', position + 1))
+                    : Try.fail(new NoSuchElementException());
+        }
+
+        @Test
+        @DisplayName("should gather outputs into an array")
+        void shouldGatherIntoArray() {
+            Parser.Result<int[], Integer> result = RepetitionParsers.oneOrMoreInts(digit).parse(0).getUnchecked();
+            assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9},
+                    result.getOutput());
+            assertEquals(19, (int) result.getInput());
+        }
+
+        @Test
+        @DisplayName("should fail without occurrences")
+        void shouldFailWhenEmpty() {
+            assertFalse(RepetitionParsers.oneOrMoreInts(digit).parse(19).isSuccess());
+            assertEquals(0, RepetitionParsers.zeroOrMoreInts(digit).parse(19).getUnchecked().getOutput().length);
+        }
+
+        @Test
+        @DisplayName("should map between primitive and object outputs")
+        void shouldMap() {
+            Parser<String, Integer> parser = digit.map(d -> d * 10).mapToObj(String::valueOf);
+            assertEquals("10", parser.parse(0).getUnchecked().getOutput());
+            assertEquals(20, parser.mapToInt(Integer::parseInt).parse(1).getUnchecked().getOutput());
+        }
+
+        @Test
+        @DisplayName("should fail when occurrence fails after a cut")
+        void shouldFailAfterCut() {
+            Parser<long[], CharInput> parser = RepetitionParsers.zeroOrMoreLongs(
+                    CharParsers.literal("a").commit().then(CharParsers.literal("bc")).mapToLong(String::length));
+            assertArrayEquals(new long[]{2, 2}, parser.parse(CharInput.of("abcabc")).getUnchecked().getOutput());
+            assertFalse(parser.parse(CharInput.of("abcab")).isSuccess());
+            assertEquals(0, RepetitionParsers.zeroOrMoreDoubles(CharParsers.integer().mapToObj(i -> i)
+                    .mapToDouble(i -> i / 2.0)).parse(CharInput.of("x")).getUnchecked().getOutput().length);
+        }
+    }
+
+    @Nested
+    @DisplayName("when parsing records in parallel")
+    class WhenParsingRecordsInParallel {
+        Parser<Stream<Integer>, CharInput> parser;
+        String records;
+
+        @BeforeEach
+        void setUp() {
+            parser = RepetitionParsers.parallelRecords(CharParsers.integer().boxed(), CharPredicate.anyOf("\n"));
+            records = IntStream.range(0, 100_000).mapToObj(i -> i + "\n").collect(Collectors.joining());
+        }
+
+        @Test
+        @DisplayName("should merge outputs in order")
+        void shouldMergeInOrder() {
+            Parser.Result<Stream<Integer>, CharInput> result = parser.parse(CharInput.of(records)).getUnchecked();
+            List<Integer> outputs = result.getOutput().collect(Collectors.toList());
+            assertEquals(IntStream.range(0, 100_000).boxed().collect(Collectors.toList()), outputs);
+            assertFalse(result.getInput().hasRemaining());
+        }
+
+        @Test
+        @DisplayName("should fail with the first record that fails")
+        void shouldFailWithFirstFailure() {
+            String text = records.replace("\n500\n", "\n5x0\n").replace("\n90000\n", "\n9000?\n");
+            CharInput input = CharInput.of(text);
+            assertFalse(parser.parse(input).isSuccess());
+            assertEquals(text.indexOf("x"), input.getFurthestFailure().get().getOffset());
+        }
+    }
+}
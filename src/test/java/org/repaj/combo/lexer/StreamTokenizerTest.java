@@ -26,11 +26,21 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.repaj.combo.CharPredicate;
+import org.repaj.combo.RecordPublisher;
+import org.repaj.combo.RepetitionParsers;
 
 import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.InputMismatchException;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -70,6 +80,13 @@ class StreamTokenizerTest {
         void shouldFailWhenNext() {
             assertThrows(IllegalStateException.class, () -> tokenizer.next("jabba"));
         }
+
+        @Test
+        @DisplayName("should fail when attempting to get literal after tokenizer is closed")
+        void shouldFailWhenTryLiteral() throws Exception {
+            tokenizer.close();
+            assertThrows(NoSuchElementException.class, () -> tokenizer.tryLiteral("jabba"));
+        }
     }
 
     @Nested
@@ -99,6 +116,32 @@ class StreamTokenizerTest {
         }
     }
 
+    @Nested
+    @DisplayName("when tokens are repeated")
+    class WhenRepeated {
+        @BeforeEach
+        void setUp() {
+            tokenizer = new StreamTokenizer(new StringReader("ab cd ef"));
+        }
+
+        @Test
+        @DisplayName("should keep every token")
+        void shouldKeepTokens() {
+            List<String> tokens = RepetitionParsers.zeroOrMore(StreamTokenizer.token("[a-z]+"), Collectors.toList())
+                    .parse(tokenizer).getUnchecked().getOutput();
+            assertEquals(Arrays.asList("ab", "cd", "ef"), tokens);
+        }
+
+        @Test
+        @DisplayName("should keep every primitive output")
+        void shouldKeepPrimitives() {
+            tokenizer = new StreamTokenizer(new StringReader("12 34 56"));
+            int[] numbers = RepetitionParsers.zeroOrMoreInts(StreamTokenizer.token("[0-9]+").mapToInt(Integer::parseInt))
+                    .parse(tokenizer).getUnchecked().getOutput();
+            assertArrayEquals(new int[]{12, 34, 56}, numbers);
+        }
+    }
+
     @Nested
     @DisplayName("when tokenizer has small buffer with partial tokens")
     class WhenHasSmallBuffer {
@@ -113,6 +156,19 @@ class StreamTokenizerTest {
             assertEquals(tokenizer.next("savbhk"), "savbhk");
             assertEquals(tokenizer.next("[0-9]+"), "21574536");
         }
+
+        @Test
+        @DisplayName("should return literals across refills")
+        void shouldReturnLiterals() {
+            tokenizer.nextLiteral("sav");
+            assertTrue(tokenizer.tryLiteral("bhk"));
+            assertFalse(tokenizer.tryLiteral("2158"));
+            tokenizer.nextLiteral("2157453");
+            assertThrows(InputMismatchException.class, () -> tokenizer.nextLiteral("65"));
+            assertTrue(tokenizer.tryLiteral("64675"));
+            assertFalse(tokenizer.tryLiteral("0"));
+            assertEquals(tokenizer.getPosition(), 19);
+        }
     }
 
     @Nested
@@ -129,4 +185,159 @@ class StreamTokenizerTest {
             assertThrows(NoSuchElementException.class, () -> tokenizer.next("\"[0-9]*\""));
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("when published as records")
+    class WhenPublished {
+        List<String> received = new ArrayList<>();
+        RecordPublisher.Subscription subscription;
+        boolean completed;
+        Throwable error;
+
+        void subscribe(String text) {
+            tokenizer = new StreamTokenizer(new StringReader(text));
+            RepetitionParsers.publisher(StreamTokenizer.token("\\w+"), tokenizer)
+                    .subscribe(new RecordPublisher.Subscriber<String>() {
+                        @Override
+                        public void onSubscribe(RecordPublisher.Subscription subscription) {
+                            WhenPublished.this.subscription = subscription;
+                        }
+
+                        @Override
+                        public void onNext(String item) {
+                            received.add(item);
+                        }
+
+                        @Override
+                        public void onError(Throwable throwable) {
+                            error = throwable;
+                        }
+
+                        @Override
+                        public void onComplete() {
+                            completed = true;
+                        }
+                    });
+        }
+
+        @Test
+        @DisplayName("should parse only demanded tokens")
+        void shouldParseDemandedTokens() {
+            subscribe("foo bar buzz");
+            assertTrue(received.isEmpty());
+            subscription.request(2);
+            assertEquals(received, Arrays.asList("foo", "bar"));
+            assertEquals(tokenizer.getPosition(), 7);
+            subscription.request(2);
+            assertEquals(received, Arrays.asList("foo", "bar", "buzz"));
+            assertTrue(completed);
+            assertNull(error);
+        }
+
+        @Test
+        @DisplayName("should signal error when a token is mismatched before the end")
+        void shouldSignalMismatch() {
+            subscribe("foo + bar");
+            subscription.request(Long.MAX_VALUE);
+            assertEquals(received, Arrays.asList("foo"));
+            assertFalse(completed);
+            assertTrue(error instanceof InputMismatchException);
+        }
+    }
+
+    @Nested
+    @DisplayName("when tokens are runs of character classes")
+    class WhenCharClasses {
+        @BeforeEach
+        void setUp() {
+            tokenizer = new StreamTokenizer(new StringReader("snake_case1 2017 \u0105b"), Pattern.compile("\\s*"), 16);
+        }
+
+        @Test
+        @DisplayName("should return tokens across refills")
+        void shouldReturnTokens() {
+            CharPredicate letter = CharPredicate.inRange('a', 'z').or(c -> c == '_');
+            CharPredicate digit = CharPredicate.inRange('0', '9');
+            assertEquals(tokenizer.next(CharClassToken.of(letter, letter.or(digit))), "snake_case1");
+            assertThrows(InputMismatchException.class, () -> tokenizer.next(CharClassToken.oneOrMore(letter)));
+            assertEquals(tokenizer.next(CharClassToken.oneOrMore(digit)), "2017");
+            assertEquals(tokenizer.next("\\w*"), "");
+            assertEquals(tokenizer.next("[^ ]+"), "\u0105b");
+        }
+
+        @Test
+        @DisplayName("should match simple patterns as regex engine does")
+        void shouldMatchAsRegex() {
+            List<String> patterns = Arrays.asList("\\s*", "\\d+", "[A-Za-z_][A-Za-z0-9_]*", "[^a-c]+",
+                    "\\p{Upper}*", "x", ".\\.*", "[+\\-*]", "\\p{L}+");
+            List<String> inputs = Arrays.asList("", " \t x", "123a", "Ident_9 x", "dd.abc", "ABc", "x..", "-1",
+                    "\u0105\u00c9\u4e2d!", "\u00a0\u2003x");
+            for (String regex : patterns) {
+                Pattern pattern = Pattern.compile(regex);
+                CharClassToken token = CharClassToken.compile(pattern);
+                assertNotSame(CharClassToken.NONE, token, regex);
+                for (String input : inputs) {
+                    CharBuffer buffer = CharBuffer.wrap(input);
+                    Matcher matcher = pattern.matcher(buffer);
+                    int end = token.match(buffer);
+                    assertEquals(matcher.lookingAt() ? matcher.end() : CharClassToken.MISMATCH, end, regex);
+                    assertEquals(matcher.hitEnd(), token.hitEnd(buffer, end), regex);
+                }
+            }
+            for (String regex : Arrays.asList("a|b", "(a)*", "[a[b]]", "\\d{2}", "ab", "a*?", "\\b")) {
+                assertSame(CharClassToken.NONE, CharClassToken.compile(Pattern.compile(regex)), regex);
+            }
+            assertSame(CharClassToken.NONE, CharClassToken.compile(Pattern.compile("\\w+", Pattern.CANON_EQ)));
+        }
+    }
+
+    @Nested
+    @DisplayName("when tokens are matched by one automaton")
+    class WhenTokenSet {
+        TokenSet tokens = TokenSet.builder()
+                .add("if", "if")
+                .add("identifier", "[a-z_][a-z0-9_]*")
+                .add("number", "\\d+(?:\\.\\d+)?")
+                .add("arrow", "=>")
+                .add("equals", "=")
+                .add("string", "\"(?:[^\"\\\\]|\\\\.)*\"")
+                .build();
+
+        @BeforeEach
+        void setUp() {
+            tokenizer = new StreamTokenizer(new StringReader("if iffy => 3.14 = \"a\\\"b\" 42 #"),
+                    Pattern.compile("\\s*"), 8);
+        }
+
+        @Test
+        @DisplayName("should return the longest tokens across refills")
+        void shouldReturnLongestTokens() {
+            assertEquals(tokenizer.next(tokens), tokens.getId("if"));
+            assertEquals(tokenizer.next(tokens), tokens.getId("identifier"));
+            assertEquals(tokenizer.getLastToken(), "iffy");
+            assertEquals(tokenizer.next(tokens), tokens.getId("arrow"));
+            assertEquals(tokenizer.next(tokens), tokens.getId("number"));
+            assertEquals(tokenizer.getLastToken(), "3.14");
+            assertEquals(tokenizer.next(tokens), tokens.getId("equals"));
+            assertEquals(tokenizer.next(tokens), tokens.getId("string"));
+            assertEquals(tokenizer.getLastToken(), "\"a\\\"b\"");
+            assertEquals(tokenizer.next(tokens), tokens.getId("number"));
+            assertEquals(tokenizer.getLastToken(), "42");
+            assertThrows(InputMismatchException.class, () -> tokenizer.next(tokens));
+        }
+
+        @Test
+        @DisplayName("should reject unsupported regexes")
+        void shouldRejectUnsupported() {
+            for (String regex : Arrays.asList("a{2", "(?=a)", "^a", "a*?", "\\1", "[a[b]]", "(a")) {
+                assertThrows(PatternSyntaxException.class, () -> TokenSet.builder().add("token", regex));
+            }
+            for (String regex : Arrays.asList("", "a*", "(?:a|)", "(a?b?)+")) {
+                assertThrows(PatternSyntaxException.class, () -> TokenSet.builder().add("token", regex));
+            }
+            assertThrows(IllegalArgumentException.class, () -> TokenSet.builder().add("a", "a").add("a", "b"));
+            assertThrows(IllegalArgumentException.class,
+                    () -> TokenSet.builder().add("token", "(a|b)*a(a|b){20}").build());
+        }
+    }
+}